@@ -2,6 +2,7 @@ plugins {
     id("java")
     id("com.gradleup.shadow") version "9.3.1"
     id("app.ultradev.hytalegradle") version "2.0.0"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "tokebak"
@@ -13,9 +14,34 @@ repositories {
 
 dependencies {
     compileOnly(files("libs/HytaleServer.jar"))
+    testImplementation(files("libs/HytaleServer.jar"))
     testImplementation(platform("org.junit:junit-bom:5.10.0"))
     testImplementation("org.junit.jupiter:junit-jupiter")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+    jmh(files("libs/HytaleServer.jar"))
+}
+
+tasks.test {
+    useJUnitPlatform()
+    // Tests run the plugin against the server's classes, which aren't checked in
+    onlyIf("libs/HytaleServer.jar is present") { file("libs/HytaleServer.jar").exists() }
+}
+
+// Headless load simulation: ./gradlew loadSimulation [-PsimArgs="--players 100,1000 --seconds 10"]
+tasks.register<JavaExec>("loadSimulation") {
+    group = "verification"
+    description = "Ticks worlds of simulated players and reports tick time, restore latency and heap growth"
+    classpath = sourceSets["test"].runtimeClasspath
+    mainClass.set("com.tokebak.Boltkeeper.LoadSimulation")
+    args = (findProperty("simArgs") as String?)?.split(" ")?.filter { it.isNotEmpty() } ?: emptyList()
+}
+
+// Hot path benchmarks: ./gradlew jmh (results in build/results/jmh/results.json)
+// Test classes are included for the stand-ins the tick benchmarks run on
+jmh {
+    includeTests.set(true)
+    resultFormat.set("JSON")
+    profilers.add("gc")
 }
 
 hytale {
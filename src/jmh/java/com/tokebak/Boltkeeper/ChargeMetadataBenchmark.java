@@ -0,0 +1,95 @@
+package com.tokebak.Boltkeeper;
+
+import org.bson.BsonDocument;
+import org.bson.BsonDouble;
+import org.bson.BsonString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of saving and reading preserved charges on a weapon's metadata document, for the packed
+ * entry and for items still carrying the legacy per-stat keys.
+ * 
+ * Works on the metadata document directly: the {@code ItemStack} wrapper around it needs the item
+ * asset store, and only adds one {@code withMetadata} copy on top.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChargeMetadataBenchmark {
+    
+    private static final ResolvedStats STATS = new ResolvedStats(new String[]{"Ammo", "MagicCharges"});
+    
+    private static final WeaponProfile PROFILE = WeaponProfile.compile(
+            new WeaponProfileConfig("Crossbow", new String[]{"Ammo"}, new String[]{"Ammo"}, new String[0], new String[0]),
+            0,
+            STATS
+    );
+    
+    private ChargeMetadata chargeMetadata;
+    
+    /**
+     * Unrelated metadata a weapon might already carry (durability, a custom name...).
+     */
+    private BsonDocument plain;
+    
+    private BsonDocument packed;
+    
+    private BsonDocument legacy;
+    
+    private float[] values;
+    
+    @Setup
+    public void setup() {
+        this.chargeMetadata = new ChargeMetadata(STATS);
+        this.plain = new BsonDocument()
+                .append("Durability", new BsonDouble(87.5))
+                .append("CustomName", new BsonString("Old Faithful"));
+        this.values = new float[STATS.size()];
+        this.values[STATS.getSlot("Ammo")] = 3f;
+        this.packed = this.chargeMetadata.write(this.plain, PROFILE, this.values);
+        this.legacy = this.plain.clone().append(ChargeMetadata.LEGACY_META_KEY_PREFIX + "Ammo", new BsonDouble(3.0));
+    }
+    
+    /**
+     * Swap away: save the stat values onto the weapon.
+     */
+    @Benchmark
+    public BsonDocument save() {
+        return this.chargeMetadata.write(this.plain, PROFILE, this.values);
+    }
+    
+    /**
+     * Swap back: read what was saved.
+     */
+    @Benchmark
+    public float[] read() {
+        return this.chargeMetadata.read(this.packed, PROFILE);
+    }
+    
+    @Benchmark
+    public float[] readLegacy() {
+        return this.chargeMetadata.read(this.legacy, PROFILE);
+    }
+    
+    /**
+     * Swap on a weapon with nothing saved (the common case).
+     */
+    @Benchmark
+    public float[] readNothingSaved() {
+        return this.chargeMetadata.read(this.plain, PROFILE);
+    }
+}
@@ -0,0 +1,86 @@
+package com.tokebak.Boltkeeper;
+
+import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
+import com.tokebak.Boltkeeper.components.ConsumableSlotIndex;
+import com.tokebak.Boltkeeper.standin.StandInItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of taking the arrows for a crossbow restore out of the inventory, by backpack size, with the
+ * only arrow stack in the last container the lookup reaches (the backpack, or storage without one).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConsumeArrowsBenchmark {
+    
+    @Param({"0", "9", "18", "36"})
+    public int backpack;
+    
+    private StandInWorld world;
+    
+    private StandInWorld.StandInPlayer player;
+    
+    private ItemContainer arrows;
+    
+    private int arrowContainer;
+    
+    private short arrowSlot;
+    
+    @Setup
+    public void setup() {
+        this.world = new StandInWorld(0L, false);
+        this.player = this.world.join(this.backpack);
+        this.player.inventory.getStorage().setItemStackForSlot(StandInWorld.ARROW_SLOT, null);
+        this.arrowContainer = this.backpack > 0 ? ConsumableSlotIndex.BACKPACK : ConsumableSlotIndex.STORAGE;
+        this.arrows = ConsumableSlotIndex.getContainer(this.player.inventory, this.arrowContainer);
+        // The last slot holds the player's essence
+        this.arrowSlot = (short) (this.arrows.getCapacity() - 2);
+        this.refill();
+        this.player.slotIndex.markAllDirty();
+    }
+    
+    /**
+     * Restore one bolt with the player's slot index built.
+     */
+    @Benchmark
+    public int consumeOne() {
+        final int consumed = this.world.system.consumeArrowsFromInventory(this.player.inventory, this.player.slotIndex, 1);
+        this.refill();
+        return consumed;
+    }
+    
+    /**
+     * Restore one bolt before the player's first tick, when the index is built on that lookup.
+     */
+    @Benchmark
+    public int consumeOneFreshIndex() {
+        final int consumed = this.world.system.consumeArrowsFromInventory(
+                this.player.inventory,
+                new ConsumableSlotIndex(this.world.matcher),
+                1
+        );
+        this.refill();
+        return consumed;
+    }
+    
+    private void refill() {
+        this.arrows.setItemStackForSlot(this.arrowSlot, new StandInItemStack(this.world.arrow, StandInWorld.ARROW_STACK));
+        this.player.slotIndex.onSlotChanged(this.arrowContainer, this.arrows, this.arrowSlot);
+    }
+}
@@ -0,0 +1,87 @@
+package com.tokebak.Boltkeeper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one player's share of the poll-mode tick, run by the real {@link BoltkeeperSystem} on
+ * stand-in inventories and stat maps (see {@link StandInWorld}). Each operation ticks the next player
+ * of the world in turn, so results read as time per player per tick at that world size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TickBenchmark {
+    
+    @Param({"100", "1000"})
+    public int players;
+    
+    private StandInWorld world;
+    
+    private List<StandInWorld.StandInPlayer> all;
+    
+    private int next;
+    
+    @Setup
+    public void setup() {
+        // No delay: every restore is due on the restore tick after its swap
+        this.world = new StandInWorld(0L, false);
+        for (int i = 0; i < this.players; i++) {
+            this.world.join(0);
+        }
+        this.all = this.world.getPlayers();
+        // First ticks set up the trackers
+        this.world.tick();
+        for (final StandInWorld.StandInPlayer player : this.all) {
+            this.world.charge(player);
+        }
+        this.world.tick();
+    }
+    
+    /**
+     * A tick where the player keeps holding their weapon (nearly every tick).
+     */
+    @Benchmark
+    public void steadyTick() {
+        this.world.tickPlayer(this.nextPlayer());
+    }
+    
+    /**
+     * A tick where the player swaps between their charged crossbow and staff: charges saved to the
+     * weapon put away, restores scheduled for the one taken out. Includes the steady tick that sees
+     * the weapon charged, and a share of the restore tick that applies the restores.
+     */
+    @Benchmark
+    public void swapTick() {
+        final StandInWorld.StandInPlayer player = this.nextPlayer();
+        this.world.charge(player);
+        this.world.tickPlayer(player);
+        final byte held = player.inventory.getActiveHotbarSlot();
+        this.world.swap(player, held == StandInWorld.CROSSBOW_SLOT ? StandInWorld.STAFF_SLOT : StandInWorld.CROSSBOW_SLOT);
+        this.world.tickPlayer(player);
+        if (this.next == 0) {
+            this.world.restoreTick();
+        }
+    }
+    
+    private StandInWorld.StandInPlayer nextPlayer() {
+        final StandInWorld.StandInPlayer player = this.all.get(this.next);
+        this.next = (this.next + 1) % this.all.size();
+        return player;
+    }
+}
@@ -0,0 +1,79 @@
+package com.tokebak.Boltkeeper.interactions;
+
+import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
+import com.tokebak.Boltkeeper.StandInWorld;
+import com.tokebak.Boltkeeper.components.ConsumableSlotIndex;
+import com.tokebak.Boltkeeper.standin.StandInItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the two essence interactions past their context lookups: the check (find the first essence
+ * and plan {@code Count}) and the consume (plan from the check's hint, then take), by backpack size,
+ * with the essence stack in the last slot of the last container the lookup reaches.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EssencePlanBenchmark {
+    
+    @Param({"0", "9", "18", "36"})
+    public int backpack;
+    
+    @Param({"1", "4"})
+    public int count;
+    
+    private StandInWorld world;
+    
+    private StandInWorld.StandInPlayer player;
+    
+    private ItemContainer essences;
+    
+    private int essenceContainer;
+    
+    private short essenceSlot;
+    
+    private int hint;
+    
+    @Setup
+    public void setup() {
+        this.world = new StandInWorld(0L, false);
+        this.player = this.world.join(this.backpack);
+        this.essenceContainer = this.backpack > 0 ? ConsumableSlotIndex.BACKPACK : ConsumableSlotIndex.STORAGE;
+        this.essences = ConsumableSlotIndex.getContainer(this.player.inventory, this.essenceContainer);
+        this.essenceSlot = (short) (this.essences.getCapacity() - 1);
+        this.hint = this.player.slotIndex.findFirst(ConsumableSlotIndex.ESSENCE, this.player.inventory);
+    }
+    
+    @Benchmark
+    public boolean check() {
+        final int first = this.player.slotIndex.findFirst(ConsumableSlotIndex.ESSENCE, this.player.inventory);
+        return first >= 0 && EssencePlan.get().plan(this.player.inventory, this.player.slotIndex, first, this.count);
+    }
+    
+    @Benchmark
+    public boolean consume() {
+        final EssencePlan plan = EssencePlan.get();
+        final boolean planned = plan.plan(this.player.inventory, this.player.slotIndex, this.hint, this.count);
+        if (planned) {
+            plan.consume(this.player.inventory, this.player.slotIndex);
+        }
+        this.essences.setItemStackForSlot(this.essenceSlot, new StandInItemStack(this.world.essence, StandInWorld.ESSENCE_STACK));
+        this.player.slotIndex.onSlotChanged(this.essenceContainer, this.essences, this.essenceSlot);
+        return planned;
+    }
+}
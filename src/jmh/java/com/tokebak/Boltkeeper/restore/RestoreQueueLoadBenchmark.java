@@ -0,0 +1,97 @@
+package com.tokebak.Boltkeeper.restore;
+
+import com.tokebak.Boltkeeper.ResolvedStats;
+import com.tokebak.Boltkeeper.WeaponProfile;
+import com.tokebak.Boltkeeper.WeaponProfileConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Synthetic load on the restore queue alone: per-tick restore scheduling and draining for a world
+ * of simulated players, each swapping weapons at a rate given by a swap profile.
+ * 
+ * Runs in sample mode so the JSON results carry tick time percentiles per player count and profile;
+ * the gc profiler (enabled in build.gradle.kts) reports allocation per tick alongside.
+ * 
+ * This does not run the per-player tick, swap handling or item metadata, which need a live server
+ * store; restore latency is fixed by the delay and not measured here.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RestoreQueueLoadBenchmark {
+    
+    private static final float TICK_SECONDS = 1f / 30f;
+    
+    private static final WeaponProfile PROFILE = WeaponProfile.compile(
+            new WeaponProfileConfig("Crossbow", new String[]{"Ammo"}, new String[]{"Ammo"}, new String[0], new String[0]),
+            0,
+            new ResolvedStats(new String[]{"Ammo"})
+    );
+    
+    private static final long RESTORE_DELAY_MS = 100L;
+    
+    /**
+     * Swap profiles, as the chance that a player swaps onto a preserved weapon in a given tick.
+     */
+    public enum SwapProfile {
+        /** AFK or building: a swap every few minutes. */
+        IDLE(1.0 / (30 * 300)),
+        /** Normal play: a swap every ~10 seconds. */
+        CASUAL(1.0 / (30 * 10)),
+        /** PvP scroll-spamming: several swaps per second. */
+        PVP(0.15);
+        
+        private final double swapChancePerTick;
+        
+        SwapProfile(final double swapChancePerTick) {
+            this.swapChancePerTick = swapChancePerTick;
+        }
+    }
+    
+    @Param({"100", "1000", "5000"})
+    public int players;
+    
+    @Param({"IDLE", "CASUAL", "PVP"})
+    public SwapProfile profile;
+    
+    private RestoreQueue queue;
+    
+    private SplittableRandom random;
+    
+    @Setup
+    public void setup() {
+        this.queue = new RestoreQueue();
+        this.random = new SplittableRandom(42L);
+    }
+    
+    /**
+     * One world tick: every player that swaps this tick schedules a restore, then due restores drain.
+     */
+    @Benchmark
+    public int worldTick() {
+        final double chance = this.profile.swapChancePerTick;
+        for (int i = 0; i < this.players; i++) {
+            if (this.random.nextDouble() < chance) {
+                // Like a real swap, each restore is a fresh record (the wheel never dereferences the entity)
+                this.queue.schedule(new PendingRestore(null, PROFILE, 0, 3f, (byte) (i % 9), true, 0), RESTORE_DELAY_MS);
+            }
+        }
+        return this.queue.advance(TICK_SECONDS).size();
+    }
+}
@@ -1,15 +1,38 @@
 package com.tokebak.Boltkeeper;
 
+import com.hypixel.hytale.assetstore.event.LoadedAssetsEvent;
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.component.ResourceType;
+import com.hypixel.hytale.component.Store;
 import com.hypixel.hytale.component.system.ISystem;
+import com.hypixel.hytale.server.core.asset.type.item.config.Item;
+import com.hypixel.hytale.server.core.event.events.entity.LivingEntityInventoryChangeEvent;
+import com.hypixel.hytale.server.core.event.events.player.DrainPlayerFromWorldEvent;
+import com.hypixel.hytale.server.core.event.events.player.PlayerDisconnectEvent;
+import com.hypixel.hytale.server.core.modules.entitystats.asset.EntityStatType;
 import com.hypixel.hytale.server.core.modules.interaction.interaction.config.Interaction;
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import com.hypixel.hytale.server.core.plugin.JavaPlugin;
 import com.hypixel.hytale.server.core.plugin.JavaPluginInit;
 import com.hypixel.hytale.server.core.util.Config;
+import com.tokebak.Boltkeeper.commands.BoltkeeperCommand;
+import com.tokebak.Boltkeeper.components.ChargeTrackerComponent;
+import com.tokebak.Boltkeeper.components.ConsumableSlotIndex;
 import com.tokebak.Boltkeeper.interactions.BoltkeeperEssenceCheckInteraction;
 import com.tokebak.Boltkeeper.interactions.BoltkeeperEssenceConsumeInteraction;
+import com.tokebak.Boltkeeper.logging.DebugLog;
+import com.tokebak.Boltkeeper.metrics.BoltkeeperMetrics;
+import com.tokebak.Boltkeeper.metrics.WorldMetrics;
+import com.tokebak.Boltkeeper.restore.RestoreQueue;
 
 import javax.annotation.Nonnull;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
 
 /**
  * Boltkeeper - A Hytale mod that enhances weapon behavior for projectile/magic weapons:
@@ -24,11 +47,38 @@ import javax.annotation.Nonnull;
  */
 public class Boltkeeper extends JavaPlugin {
 
+    private static final ObjectName METRICS_OBJECT_NAME = metricsObjectName();
+
+    private static final int DEBUG_LOG_CAPACITY = 8192;
+
+    private static final String CONFIG_NAME = "BoltkeeperConfig";
+
+    private static Boltkeeper instance;
+
     private Config<BoltkeeperConfig> config;
 
+    private LiveConfig liveConfig;
+
+    private ConfigWatcher configWatcher;
+
+    private ComponentType<EntityStore, ChargeTrackerComponent> chargeTrackerComponentType;
+
+    private ComponentType<EntityStore, ConsumableSlotIndex> consumableSlotIndexComponentType;
+
+    private ResourceType<EntityStore, RestoreQueue> restoreQueueResourceType;
+
+    private ResourceType<EntityStore, WorldMetrics> worldMetricsResourceType;
+
+    private ConsumableMatcher consumableMatcher;
+
+    private BoltkeeperMetrics metrics;
+
+    private DebugLog debugLog;
+
     public Boltkeeper(@Nonnull final JavaPluginInit init) {
         super(init);
-        this.config = this.withConfig("BoltkeeperConfig", BoltkeeperConfig.CODEC);
+        instance = this;
+        this.config = this.withConfig(CONFIG_NAME, BoltkeeperConfig.CODEC);
     }
 
     @Override
@@ -40,19 +90,206 @@ public class Boltkeeper extends JavaPlugin {
 
         final BoltkeeperConfig cfg = (BoltkeeperConfig) this.config.get();
 
+        // Runtime settings are read through immutable snapshots, swapped whole when the file changes
+        this.liveConfig = new LiveConfig(cfg);
+
         // Register custom interactions for Fire Staff backpack essence support
         this.registerInteractions();
 
+        // Register the per-player tracking component (stored next to Player in the archetype chunk)
+        this.chargeTrackerComponentType = this.getEntityStoreRegistry().registerComponent(
+                ChargeTrackerComponent.class,
+                ChargeTrackerComponent::new
+        );
+
+        // Register the per-player index of arrow/essence slots (kept current from inventory change events)
+        this.consumableSlotIndexComponentType = this.getEntityStoreRegistry().registerComponent(
+                ConsumableSlotIndex.class,
+                ConsumableSlotIndex::new
+        );
+
+        // Register the per-world restore queue (timing wheel drained on the world thread)
+        this.restoreQueueResourceType = this.getEntityStoreRegistry().registerResource(
+                RestoreQueue.class,
+                RestoreQueue::new
+        );
+
+        // Register the per-world counters (written by the world thread, summed up by /boltkeeper stats)
+        this.worldMetricsResourceType = this.getEntityStoreRegistry().registerResource(
+                WorldMetrics.class,
+                WorldMetrics::new
+        );
+
+        // Resolve every stat preserved by a weapon profile once, and again whenever stat assets reload
+        final ResolvedStats stats = ResolvedStats.fromProfiles(cfg.getWeaponProfiles());
+        stats.refresh();
+        this.getEventRegistry().register(LoadedAssetsEvent.class, EntityStatType.class, event -> stats.refresh());
+
+        // Classify weapon items once per Item asset load instead of matching ids on every swap
+        final WeaponClassifier classifier = new WeaponClassifier(cfg.getWeaponProfiles(), stats);
+        classifier.rebuild();
+        this.getEventRegistry().register(LoadedAssetsEvent.class, Item.class, event -> classifier.rebuild());
+
+        // Same for arrows and essence: slot indexes test a precomputed kind mask instead of item ids
+        final ConsumableConfig[] consumables = new ConsumableConfig[ConsumableSlotIndex.KIND_COUNT];
+        consumables[ConsumableSlotIndex.ARROW] = cfg.getArrows();
+        consumables[ConsumableSlotIndex.ESSENCE] = cfg.getEssences();
+        this.consumableMatcher = new ConsumableMatcher(consumables);
+        this.consumableMatcher.rebuild();
+        this.getEventRegistry().register(LoadedAssetsEvent.class, Item.class, event -> this.consumableMatcher.rebuild());
+
+        // Metrics, exposed through /boltkeeper stats and JMX
+        final WeaponProfileConfig[] profiles = cfg.getWeaponProfiles();
+        final String[] profileIds = new String[profiles.length];
+        for (int i = 0; i < profiles.length; i++) {
+            profileIds[i] = profiles[i].getId();
+        }
+        this.metrics = new BoltkeeperMetrics(profileIds);
+        this.metrics.setPendingRestoresSource(Boltkeeper::countPendingRestores);
+        this.registerMetricsMBean();
+        this.getCommandRegistry().registerCommand(new BoltkeeperCommand(this.metrics));
+
+        // Debug output goes through a ring buffer flushed to debug.log by a background thread
+        this.debugLog = new DebugLog(this.getDataDirectory().resolve("debug.log"), DEBUG_LOG_CAPACITY);
+        this.debugLog.setEnabled(this.liveConfig.get().isDebug());
+
         // Register the Boltkeeper system for ammo preservation
-        final BoltkeeperSystem system = new BoltkeeperSystem(cfg);
+        final BoltkeeperSystem system = new BoltkeeperSystem(this.liveConfig, stats, classifier, this.metrics, this.debugLog);
         this.getEntityStoreRegistry().registerSystem((ISystem<EntityStore>) system);
 
+        // Drain due restores once per world tick, and drop those of players who leave
+        final BoltkeeperRestoreSystem restoreSystem = new BoltkeeperRestoreSystem(system, this.metrics);
+        this.getEntityStoreRegistry().registerSystem((ISystem<EntityStore>) restoreSystem);
+        this.getEventRegistry().register(PlayerDisconnectEvent.class, restoreSystem::onPlayerDisconnect);
+        this.getEventRegistry().registerGlobal(DrainPlayerFromWorldEvent.class, restoreSystem::onDrainPlayerFromWorld);
+
+        // Event-driven slot detection: react to slot switches instead of polling
+        this.getEntityStoreRegistry().registerSystem((ISystem<EntityStore>) new BoltkeeperSlotSwitchSystem(this.liveConfig, system));
+
+        // Inventory changes keep the consumable slot index current
+        this.getEventRegistry().registerGlobal(LivingEntityInventoryChangeEvent.class, system::onInventoryChange);
+
+        // Pick up edits to the config file without a restart
+        this.configWatcher = new ConfigWatcher(this.getDataDirectory().resolve(CONFIG_NAME + ".json"), this::reloadConfig);
+        this.configWatcher.start();
+
         System.out.println("[BOLTKEEPER] ========================================");
         System.out.println("[BOLTKEEPER] Boltkeeper mod loaded!");
-        System.out.println("[BOLTKEEPER] Config: enabled=" + cfg.isEnabled() + ", debug=" + cfg.isDebug());
+        System.out.println("[BOLTKEEPER] Config: " + this.liveConfig.get());
         System.out.println("[BOLTKEEPER] ========================================");
     }
     
+    @Override
+    protected void shutdown() {
+        super.shutdown();
+        this.unregisterMetricsMBean();
+        if (this.configWatcher != null) {
+            this.configWatcher.stop();
+        }
+        if (this.debugLog != null) {
+            this.debugLog.shutdown();
+        }
+    }
+
+    @Nonnull
+    public static Boltkeeper get() {
+        return instance;
+    }
+
+    @Nonnull
+    public ConsumableMatcher getConsumableMatcher() {
+        return this.consumableMatcher;
+    }
+
+    @Nonnull
+    public BoltkeeperMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    @Nonnull
+    public ComponentType<EntityStore, ChargeTrackerComponent> getChargeTrackerComponentType() {
+        return this.chargeTrackerComponentType;
+    }
+
+    @Nonnull
+    public ComponentType<EntityStore, ConsumableSlotIndex> getConsumableSlotIndexComponentType() {
+        return this.consumableSlotIndexComponentType;
+    }
+
+    @Nonnull
+    public ResourceType<EntityStore, RestoreQueue> getRestoreQueueResourceType() {
+        return this.restoreQueueResourceType;
+    }
+
+    @Nonnull
+    public ResourceType<EntityStore, WorldMetrics> getWorldMetricsResourceType() {
+        return this.worldMetricsResourceType;
+    }
+    
+    /**
+     * Re-read the config file and publish its runtime settings. Called from the config watcher thread.
+     * Weapon profiles and consumables are only read at startup.
+     */
+    private void reloadConfig() {
+        this.config.load().whenComplete((loaded, error) -> {
+            if (error != null || loaded == null) {
+                System.out.println("[BOLTKEEPER] Config reload failed, keeping current settings: "
+                        + (error != null ? error.getMessage() : "no config"));
+                return;
+            }
+            final ConfigSnapshot snapshot = this.liveConfig.publish(loaded);
+            this.debugLog.setEnabled(snapshot.isDebug());
+            System.out.println("[BOLTKEEPER] Config reloaded: " + snapshot);
+        });
+    }
+
+    /**
+     * Restores waiting in the queues of every loaded world. Read off the world threads, so the sum is approximate.
+     */
+    private static long countPendingRestores() {
+        long pending = 0;
+        for (final World world : Universe.get().getWorlds().values()) {
+            final Store<EntityStore> store = world.getEntityStore().getStore();
+            final RestoreQueue queue = (RestoreQueue) store.getResource(RestoreQueue.getResourceType());
+            if (queue != null) {
+                pending += queue.size();
+            }
+        }
+        return pending;
+    }
+    
+    /**
+     * Expose the metrics over JMX (replacing a stale registration left by a previous load).
+     */
+    private void registerMetricsMBean() {
+        this.unregisterMetricsMBean();
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this.metrics, METRICS_OBJECT_NAME);
+        } catch (final JMException e) {
+            System.out.println("[BOLTKEEPER] Failed to register metrics MBean: " + e.getMessage());
+        }
+    }
+
+    private void unregisterMetricsMBean() {
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(METRICS_OBJECT_NAME)) {
+                server.unregisterMBean(METRICS_OBJECT_NAME);
+            }
+        } catch (final JMException e) {
+            System.out.println("[BOLTKEEPER] Failed to unregister metrics MBean: " + e.getMessage());
+        }
+    }
+
+    @Nonnull
+    private static ObjectName metricsObjectName() {
+        try {
+            return new ObjectName("com.tokebak.Boltkeeper:type=Metrics");
+        } catch (final MalformedObjectNameException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
     /**
      * Register custom interaction types for Fire Staff essence handling.
      * These interactions check/consume Fire Essence from backpack in addition to hotbar/storage.
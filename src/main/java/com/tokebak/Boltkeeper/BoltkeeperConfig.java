@@ -3,11 +3,14 @@ package com.tokebak.Boltkeeper;
 import com.hypixel.hytale.codec.Codec;
 import com.hypixel.hytale.codec.KeyedCodec;
 import com.hypixel.hytale.codec.builder.BuilderCodec;
+import com.hypixel.hytale.codec.codecs.array.ArrayCodec;
 
 import javax.annotation.Nonnull;
+import java.util.Arrays;
 
 /**
- * Configuration for the Boltkeeper mod.
+ * Configuration for the Boltkeeper mod, as loaded from the config file.
+ * Running code reads the {@link ConfigSnapshot} published from it through {@link LiveConfig}.
  */
 public class BoltkeeperConfig {
 
@@ -25,8 +28,56 @@ public class BoltkeeperConfig {
                     (config, value) -> config.restoreDelayMs = value,
                     config -> config.restoreDelayMs)
             .add()
+            .append(new KeyedCodec<>("RestoreMode", Codec.STRING),
+                    (config, value) -> config.restoreMode = value,
+                    config -> config.restoreMode)
+            .add()
+            .append(new KeyedCodec<>("SlotDetection", Codec.STRING),
+                    (config, value) -> config.slotDetection = value,
+                    config -> config.slotDetection)
+            .add()
+            .append(new KeyedCodec<>("ParallelTick", Codec.BOOLEAN),
+                    (config, value) -> config.parallelTick = value,
+                    config -> config.parallelTick)
+            .add()
+            .append(new KeyedCodec<>("WeaponProfiles", new ArrayCodec<>(WeaponProfileConfig.CODEC, WeaponProfileConfig[]::new)),
+                    (config, value) -> config.weaponProfiles = value,
+                    config -> config.weaponProfiles)
+            .add()
+            .append(new KeyedCodec<>("Arrows", ConsumableConfig.CODEC),
+                    (config, value) -> config.arrows = value,
+                    config -> config.arrows)
+            .add()
+            .append(new KeyedCodec<>("Essences", ConsumableConfig.CODEC),
+                    (config, value) -> config.essences = value,
+                    config -> config.essences)
+            .add()
+            .append(new KeyedCodec<>("WorldOverrides", new ArrayCodec<>(WorldOverrideConfig.CODEC, WorldOverrideConfig[]::new)),
+                    (config, value) -> config.worldOverrides = value,
+                    config -> config.worldOverrides)
+            .add()
             .build();
 
+    /**
+     * Restore mode that applies restores once RestoreDelayMs has passed.
+     */
+    public static final String RESTORE_MODE_DELAY = "Delay";
+
+    /**
+     * Restore mode that applies restores once the stat's reset after the swap is confirmed, with RestoreDelayMs as a timeout.
+     */
+    public static final String RESTORE_MODE_ADAPTIVE = "Adaptive";
+
+    /**
+     * Slot detection mode that polls every player's active hotbar slot each tick.
+     */
+    public static final String SLOT_DETECTION_POLL = "Poll";
+
+    /**
+     * Slot detection mode that reacts to the server's active slot switch events.
+     */
+    public static final String SLOT_DETECTION_EVENT = "Event";
+
     /**
      * Whether Boltkeeper is enabled.
      */
@@ -39,10 +90,65 @@ public class BoltkeeperConfig {
 
     /**
      * Delay in milliseconds before restoring bolts after a slot change.
-     * This ensures the game's internal reset has completed first.
+     * This ensures the game's internal reset has completed first; in "Adaptive" restore mode
+     * it is only the longest a restore waits for that reset to be seen.
+     * Converted to whole world ticks (at least one) when the restore is scheduled.
      */
     private long restoreDelayMs = 100L;
 
+    /**
+     * When restores apply: "Delay" waits out RestoreDelayMs, "Adaptive" watches the stat
+     * and applies once it has seen the game reset it after the swap.
+     */
+    private String restoreMode = RESTORE_MODE_DELAY;
+
+    /**
+     * How hotbar slot changes are detected: "Poll" checks every player every tick,
+     * "Event" reacts to slot switch events and reads stats only when one fires.
+     */
+    private String slotDetection = SLOT_DETECTION_POLL;
+
+    /**
+     * Whether the tick may spread large archetype chunks across worker threads.
+     */
+    private boolean parallelTick = true;
+
+    /**
+     * Weapon profiles: which items Boltkeeper handles and which stats each preserves.
+     * Modded weapon packs can add their own entries.
+     */
+    private WeaponProfileConfig[] weaponProfiles = {
+            new WeaponProfileConfig(
+                    "Crossbow",
+                    new String[]{"Ammo"},
+                    new String[]{"Ammo"},
+                    new String[0],
+                    new String[]{"Crossbow"}
+            ),
+            new WeaponProfileConfig(
+                    "FireStaff",
+                    new String[]{"MagicCharges"},
+                    new String[0],
+                    new String[]{"Weapon_Staff_Crystal_Flame"},
+                    new String[0]
+            )
+    };
+
+    /**
+     * Items restoring arrow-backed stats consumes from the inventory.
+     */
+    private ConsumableConfig arrows = new ConsumableConfig(new String[0], new String[]{"Arrow"});
+
+    /**
+     * Items the essence check/consume interactions look for.
+     */
+    private ConsumableConfig essences = new ConsumableConfig(new String[]{"Ingredient_Fire_Essence"}, new String[0]);
+
+    /**
+     * Per-world overrides of Enabled and RestoreDelayMs, by world name.
+     */
+    private WorldOverrideConfig[] worldOverrides = new WorldOverrideConfig[0];
+
     public BoltkeeperConfig() {
     }
 
@@ -70,6 +176,70 @@ public class BoltkeeperConfig {
         this.restoreDelayMs = restoreDelayMs;
     }
 
+    public String getRestoreMode() {
+        return this.restoreMode;
+    }
+
+    public void setRestoreMode(final String restoreMode) {
+        this.restoreMode = restoreMode;
+    }
+
+    public String getSlotDetection() {
+        return this.slotDetection;
+    }
+
+    public void setSlotDetection(final String slotDetection) {
+        this.slotDetection = slotDetection;
+    }
+
+    public boolean isParallelTick() {
+        return this.parallelTick;
+    }
+
+    public void setParallelTick(final boolean parallelTick) {
+        this.parallelTick = parallelTick;
+    }
+
+    public ConsumableConfig getArrows() {
+        return this.arrows;
+    }
+
+    public void setArrows(final ConsumableConfig arrows) {
+        this.arrows = arrows;
+    }
+
+    public ConsumableConfig getEssences() {
+        return this.essences;
+    }
+
+    public void setEssences(final ConsumableConfig essences) {
+        this.essences = essences;
+    }
+
+    public WeaponProfileConfig[] getWeaponProfiles() {
+        return this.weaponProfiles;
+    }
+
+    public void setWeaponProfiles(final WeaponProfileConfig[] weaponProfiles) {
+        this.weaponProfiles = weaponProfiles;
+    }
+
+    public WorldOverrideConfig[] getWorldOverrides() {
+        return this.worldOverrides;
+    }
+
+    public void setWorldOverrides(final WorldOverrideConfig[] worldOverrides) {
+        this.worldOverrides = worldOverrides;
+    }
+
+    public boolean isEventSlotDetection() {
+        return SLOT_DETECTION_EVENT.equalsIgnoreCase(this.slotDetection);
+    }
+
+    public boolean isAdaptiveRestore() {
+        return RESTORE_MODE_ADAPTIVE.equalsIgnoreCase(this.restoreMode);
+    }
+
     @Nonnull
     @Override
     public String toString() {
@@ -77,6 +247,13 @@ public class BoltkeeperConfig {
                 "enabled=" + enabled +
                 ", debug=" + debug +
                 ", restoreDelayMs=" + restoreDelayMs +
+                ", restoreMode=" + restoreMode +
+                ", slotDetection=" + slotDetection +
+                ", parallelTick=" + parallelTick +
+                ", weaponProfiles=" + Arrays.toString(weaponProfiles) +
+                ", arrows=" + arrows +
+                ", essences=" + essences +
+                ", worldOverrides=" + Arrays.toString(worldOverrides) +
                 '}';
     }
 }
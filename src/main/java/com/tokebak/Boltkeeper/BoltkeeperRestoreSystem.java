@@ -0,0 +1,139 @@
+package com.tokebak.Boltkeeper;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.system.tick.TickingSystem;
+import com.hypixel.hytale.server.core.event.events.player.DrainPlayerFromWorldEvent;
+import com.hypixel.hytale.server.core.event.events.player.PlayerDisconnectEvent;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.tokebak.Boltkeeper.components.ChargeTrackerComponent;
+import com.tokebak.Boltkeeper.metrics.BoltkeeperMetrics;
+import com.tokebak.Boltkeeper.metrics.WorldMetrics;
+import com.tokebak.Boltkeeper.restore.RestoreQueue;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Drains each world's {@link RestoreQueue} on the world thread, once per tick,
+ * applying every restore that became due in that tick as one batch.
+ * Adaptive restores are checked for their stat reset after the batch and apply on the tick after it is confirmed.
+ * 
+ * Also keeps the queues from holding on to players who left: restores for a player are dropped
+ * when they disconnect or are drained from a world, and a periodic sweep catches any entity
+ * removed some other way.
+ */
+public class BoltkeeperRestoreSystem extends TickingSystem<EntityStore> {
+    
+    /**
+     * Ticks between sweeps for restores whose player is gone (about two seconds at 30 TPS).
+     */
+    private static final int SWEEP_INTERVAL_TICKS = 64;
+    
+    private final BoltkeeperSystem system;
+    
+    private final BoltkeeperMetrics metrics;
+    
+    public BoltkeeperRestoreSystem(@Nonnull final BoltkeeperSystem system, @Nonnull final BoltkeeperMetrics metrics) {
+        this.system = system;
+        this.metrics = metrics;
+    }
+    
+    @Override
+    public void tick(final float dt, final int systemIndex, @Nonnull final Store<EntityStore> store) {
+        final RestoreQueue queue = (RestoreQueue) store.getResource(RestoreQueue.getResourceType());
+        
+        this.system.applyRestores(queue.advance(dt), store);
+        
+        if (queue.isWatching()) {
+            queue.promoteReset(restore -> this.system.isStatAtMin(restore, store));
+        }
+        
+        this.sweepIfDue(queue, (WorldMetrics) store.getResource(WorldMetrics.getResourceType()));
+    }
+    
+    // ==================== PLAYER LIFECYCLE ====================
+    
+    /**
+     * A player disconnected: drop their pending restores on their world's thread.
+     */
+    public void onPlayerDisconnect(@Nonnull final PlayerDisconnectEvent event) {
+        final Ref<EntityStore> entityRef = event.getPlayerRef().getReference();
+        if (entityRef == null || !entityRef.isValid()) {
+            return;
+        }
+        final Store<EntityStore> store = entityRef.getStore();
+        final World world = store.getExternalData().getWorld();
+        if (world == null) {
+            return;
+        }
+        world.execute(() -> this.dropRestoresOf(
+                entityRef,
+                (RestoreQueue) store.getResource(RestoreQueue.getResourceType()),
+                (WorldMetrics) store.getResource(WorldMetrics.getResourceType())
+        ));
+    }
+    
+    /**
+     * A player is leaving a world (changing worlds or disconnecting): their entity in that world is
+     * going away, so sweep its queue once they are gone. Restores still pending for them travel
+     * with their tracker and are scheduled again in the world they arrive in.
+     */
+    public void onDrainPlayerFromWorld(@Nonnull final DrainPlayerFromWorldEvent event) {
+        final ChargeTrackerComponent tracker = event.getHolder().getComponent(ChargeTrackerComponent.getComponentType());
+        if (tracker != null) {
+            tracker.onLeftWorld();
+        }
+        
+        final World world = event.getWorld();
+        if (world == null) {
+            return;
+        }
+        world.execute(() -> {
+            final Store<EntityStore> store = world.getEntityStore().getStore();
+            this.sweep(
+                    (RestoreQueue) store.getResource(RestoreQueue.getResourceType()),
+                    (WorldMetrics) store.getResource(WorldMetrics.getResourceType())
+            );
+        });
+    }
+    
+    /**
+     * Drop a disconnected player's restores from their world's queue, along with any whose player
+     * is already gone.
+     */
+    void dropRestoresOf(
+            @Nonnull final Ref<EntityStore> entityRef,
+            @Nonnull final RestoreQueue queue,
+            @Nonnull final WorldMetrics worldMetrics
+    ) {
+        final int dropped = queue.removeIf(restore -> restore.getEntityRef().equals(entityRef) || !restore.getEntityRef().isValid());
+        this.recordDropped(worldMetrics, dropped);
+    }
+    
+    /**
+     * The periodic sweep, on the ticks it is due.
+     */
+    void sweepIfDue(@Nonnull final RestoreQueue queue, @Nonnull final WorldMetrics worldMetrics) {
+        if (queue.getCurrentTick() % SWEEP_INTERVAL_TICKS == 0) {
+            this.sweep(queue, worldMetrics);
+        }
+    }
+    
+    /**
+     * Drop the restores of players no longer in the queue's world.
+     */
+    void sweep(@Nullable final RestoreQueue queue, @Nonnull final WorldMetrics worldMetrics) {
+        if (queue != null && queue.size() > 0) {
+            this.recordDropped(worldMetrics, queue.sweepInvalid());
+        }
+    }
+    
+    private void recordDropped(@Nonnull final WorldMetrics worldMetrics, final int dropped) {
+        if (dropped > 0) {
+            this.metrics.recordRestoresDropped(dropped);
+            worldMetrics.recordRestoresDropped(dropped);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.tokebak.Boltkeeper;
+
+import com.hypixel.hytale.component.ArchetypeChunk;
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.query.Query;
+import com.hypixel.hytale.component.system.EntityEventSystem;
+import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.server.core.event.events.ecs.SwitchActiveSlotEvent;
+import com.hypixel.hytale.server.core.inventory.Inventory;
+import com.hypixel.hytale.server.core.modules.entitystats.EntityStatMap;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.tokebak.Boltkeeper.components.ChargeTrackerComponent;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Event-driven hotbar slot change detection (SlotDetection = "Event").
+ * 
+ * Reacts to the server's SwitchActiveSlotEvent instead of polling every player's active slot
+ * every tick, and hands the swap to {@link BoltkeeperSystem} for the save/restore logic.
+ * The event fires before the switch, so the stats are read here, before vanilla resets them,
+ * and no player's stats need shadowing every tick.
+ */
+public class BoltkeeperSlotSwitchSystem extends EntityEventSystem<EntityStore, SwitchActiveSlotEvent> {
+    
+    private final LiveConfig config;
+    
+    private final BoltkeeperSystem system;
+    
+    public BoltkeeperSlotSwitchSystem(@Nonnull final LiveConfig config, @Nonnull final BoltkeeperSystem system) {
+        super(SwitchActiveSlotEvent.class);
+        this.config = config;
+        this.system = system;
+    }
+    
+    @Nullable
+    @Override
+    public Query<EntityStore> getQuery() {
+        return Query.and(Player.getComponentType(), ChargeTrackerComponent.getComponentType());
+    }
+    
+    @Override
+    public void handle(
+            final int index,
+            @Nonnull final ArchetypeChunk<EntityStore> archetypeChunk,
+            @Nonnull final Store<EntityStore> store,
+            @Nonnull final CommandBuffer<EntityStore> commandBuffer,
+            @Nonnull final SwitchActiveSlotEvent event
+    ) {
+        if (!this.config.get(store).isEventSlotDetection() || event.isCancelled()) {
+            return;
+        }
+        
+        // Only hotbar switches matter, utility/tool slot switches never reset weapon stats
+        if (event.getInventorySectionId() != Inventory.HOTBAR_SECTION_ID) {
+            return;
+        }
+        
+        final Ref<EntityStore> entityRef = archetypeChunk.getReferenceTo(index);
+        if (entityRef == null || !entityRef.isValid()) {
+            return;
+        }
+        
+        final Player player = (Player) archetypeChunk.getComponent(index, Player.getComponentType());
+        if (player == null || player.getInventory() == null) {
+            return;
+        }
+        
+        final ChargeTrackerComponent tracker = (ChargeTrackerComponent) archetypeChunk.getComponent(
+                index,
+                ChargeTrackerComponent.getComponentType()
+        );
+        if (tracker == null) {
+            return;
+        }
+        
+        final EntityStatMap statMap = (EntityStatMap) archetypeChunk.getComponent(index, EntityStatMap.getComponentType());
+        
+        this.system.onHotbarSwitch(
+                entityRef,
+                store,
+                player.getInventory(),
+                tracker,
+                statMap,
+                (byte) event.getPreviousSlot(),
+                (byte) event.getNewSlot()
+        );
+    }
+}
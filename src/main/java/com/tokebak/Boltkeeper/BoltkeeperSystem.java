@@ -1,6 +1,5 @@
 package com.tokebak.Boltkeeper;
 
-import com.hypixel.hytale.codec.Codec;
 import com.hypixel.hytale.component.ArchetypeChunk;
 import com.hypixel.hytale.component.CommandBuffer;
 import com.hypixel.hytale.component.Ref;
@@ -8,83 +7,66 @@ import com.hypixel.hytale.component.Store;
 import com.hypixel.hytale.component.query.Query;
 import com.hypixel.hytale.component.system.tick.EntityTickingSystem;
 import com.hypixel.hytale.server.core.entity.entities.Player;
-import com.hypixel.hytale.server.core.entity.UUIDComponent;
+import com.hypixel.hytale.server.core.event.events.entity.LivingEntityInventoryChangeEvent;
 import com.hypixel.hytale.server.core.inventory.Inventory;
 import com.hypixel.hytale.server.core.inventory.ItemStack;
 import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
+import com.hypixel.hytale.server.core.inventory.transaction.ItemStackSlotTransaction;
+import com.hypixel.hytale.server.core.inventory.transaction.SlotTransaction;
 import com.hypixel.hytale.server.core.modules.entitystats.EntityStatMap;
-import com.hypixel.hytale.server.core.modules.entitystats.asset.EntityStatType;
-import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.tokebak.Boltkeeper.components.ChargeTrackerComponent;
+import com.tokebak.Boltkeeper.components.ConsumableSlotIndex;
+import com.tokebak.Boltkeeper.logging.DebugLog;
+import com.tokebak.Boltkeeper.metrics.BoltkeeperMetrics;
+import com.tokebak.Boltkeeper.metrics.WorldMetrics;
+import com.tokebak.Boltkeeper.restore.PendingRestore;
+import com.tokebak.Boltkeeper.restore.RestoreQueue;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.List;
 
 /**
  * Boltkeeper System - Preserves weapon charge stats between weapon swaps.
  * 
  * By default, Hytale resets certain stats (Ammo, MagicCharges) when switching hotbar slots.
  * This system:
- * 1. Saves the stat value to item metadata when swapping away from a supported weapon
- * 2. Restores that exact amount when swapping back
+ * 1. Saves the stat values to item metadata when swapping away from a supported weapon
+ * 2. Restores those exact amounts when swapping back
  * 
- * Supported weapons:
+ * Which weapons are supported and which stats they preserve comes from the configured
+ * weapon profiles. By default:
  * - Crossbows: Preserves the "Ammo" stat (loaded bolts)
  * - Fire Staff: Preserves the "MagicCharges" stat (charged fire orbs)
  */
 public class BoltkeeperSystem extends EntityTickingSystem<EntityStore> {
     
-    /**
-     * Metadata key for storing saved Ammo count on crossbow items.
-     */
-    public static final String META_KEY_SAVED_AMMO = "BK_SavedAmmo";
-    
-    /**
-     * Metadata key for storing saved MagicCharges count on fire staff items.
-     */
-    public static final String META_KEY_SAVED_MAGIC_CHARGES = "BK_SavedMagicCharges";
+    private final LiveConfig config;
     
-    private final BoltkeeperConfig config;
+    private final ResolvedStats stats;
     
-    /**
-     * Tracks the last known active hotbar slot per player UUID.
-     */
-    private final Map<UUID, Byte> lastActiveSlot = new ConcurrentHashMap<>();
+    private final WeaponClassifier classifier;
     
-    /**
-     * Tracks the Ammo value from the PREVIOUS tick per player UUID.
-     * This is crucial because by the time we detect a slot change, the game has
-     * already reset the ammo. We need the value from BEFORE the reset.
-     */
-    private final Map<UUID, Float> previousTickAmmo = new ConcurrentHashMap<>();
+    private final ChargeMetadata chargeMetadata;
     
-    /**
-     * Tracks the MagicCharges value from the PREVIOUS tick per player UUID.
-     */
-    private final Map<UUID, Float> previousTickMagicCharges = new ConcurrentHashMap<>();
+    private final BoltkeeperMetrics metrics;
     
-    /**
-     * Scheduler for delayed stat restoration.
-     */
-    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final DebugLog log;
     
-    public BoltkeeperSystem(@Nonnull final BoltkeeperConfig config) {
+    public BoltkeeperSystem(
+            @Nonnull final LiveConfig config,
+            @Nonnull final ResolvedStats stats,
+            @Nonnull final WeaponClassifier classifier,
+            @Nonnull final BoltkeeperMetrics metrics,
+            @Nonnull final DebugLog log
+    ) {
         this.config = config;
-    }
-    
-    /**
-     * Helper to log debug messages only when debug mode is enabled.
-     */
-    private void debug(@Nonnull final String message) {
-        if (this.config.isDebug()) {
-            System.out.println("[BOLTKEEPER:DEBUG] " + message);
-        }
+        this.stats = stats;
+        this.classifier = classifier;
+        this.chargeMetadata = new ChargeMetadata(stats);
+        this.metrics = metrics;
+        this.log = log;
     }
     
     @Nullable
@@ -93,18 +75,90 @@ public class BoltkeeperSystem extends EntityTickingSystem<EntityStore> {
         return Player.getComponentType();
     }
     
+    @Override
+    public void tick(final float dt, final int systemIndex, @Nonnull final Store<EntityStore> store) {
+        final long start = System.nanoTime();
+        super.tick(dt, systemIndex, store);
+        this.metrics.recordTick(System.nanoTime() - start);
+    }
+    
+    /**
+     * Tick a whole archetype chunk in one pass. The settings are read once for the chunk and each
+     * player's active slot is compared against the tracker's last one; only players whose slot
+     * changed (or who need setting up) go through {@link #tickEntity}. Large chunks are left to
+     * the per-entity dispatch so they can still be spread across worker threads.
+     */
     @Override
     public void tick(
             final float dt,
-            final int index,
             @Nonnull final ArchetypeChunk<EntityStore> archetypeChunk,
             @Nonnull final Store<EntityStore> store,
             @Nonnull final CommandBuffer<EntityStore> commandBuffer
     ) {
-        if (!this.config.isEnabled()) {
+        final ConfigSnapshot settings = this.config.get(store);
+        if (!settings.isEnabled()) {
+            return;
+        }
+        
+        final int size = archetypeChunk.size();
+        if (settings.isParallelTick() && EntityTickingSystem.maybeUseParallel(size, 0)) {
+            // Worlds with ParallelTick off never reach the parallel dispatch (see isParallel)
+            super.tick(dt, archetypeChunk, store, commandBuffer);
             return;
         }
         
+        final boolean eventDriven = settings.isEventSlotDetection();
+        final int generation = settings.getGeneration();
+        for (int index = 0; index < size; index++) {
+            final ChargeTrackerComponent tracker = (ChargeTrackerComponent) archetypeChunk.getComponent(
+                    index,
+                    ChargeTrackerComponent.getComponentType()
+            );
+            if (tracker == null || tracker.getConfigGeneration() != generation || tracker.hasTransferredRestores()) {
+                // First tick, config reload or world transfer
+                this.tickEntity(index, archetypeChunk, commandBuffer, settings);
+                continue;
+            }
+            if (eventDriven) {
+                continue;
+            }
+            
+            final Player player = (Player) archetypeChunk.getComponent(index, Player.getComponentType());
+            final Inventory inventory = player != null ? player.getInventory() : null;
+            if (inventory == null) {
+                continue;
+            }
+            if (inventory.getActiveHotbarSlot() != tracker.getLastActiveSlot()) {
+                this.tickEntity(index, archetypeChunk, commandBuffer, settings);
+                continue;
+            }
+            
+            // No slot change - just update the tracked stats for next tick
+            tracker.track((EntityStatMap) archetypeChunk.getComponent(index, EntityStatMap.getComponentType()), this.stats);
+        }
+    }
+    
+    @Override
+    public void tick(
+            final float dt,
+            final int index,
+            @Nonnull final ArchetypeChunk<EntityStore> archetypeChunk,
+            @Nonnull final Store<EntityStore> store,
+            @Nonnull final CommandBuffer<EntityStore> commandBuffer
+    ) {
+        final ConfigSnapshot settings = this.config.get(store);
+        if (!settings.isEnabled()) {
+            return;
+        }
+        this.tickEntity(index, archetypeChunk, commandBuffer, settings);
+    }
+    
+    private void tickEntity(
+            final int index,
+            @Nonnull final ArchetypeChunk<EntityStore> archetypeChunk,
+            @Nonnull final CommandBuffer<EntityStore> commandBuffer,
+            @Nonnull final ConfigSnapshot settings
+    ) {
         final Ref<EntityStore> entityRef = archetypeChunk.getReferenceTo(index);
         if (entityRef == null || !entityRef.isValid()) {
             return;
@@ -120,59 +174,203 @@ public class BoltkeeperSystem extends EntityTickingSystem<EntityStore> {
             return;
         }
         
-        final UUIDComponent uuidComponent = (UUIDComponent) archetypeChunk.getComponent(index, UUIDComponent.getComponentType());
-        if (uuidComponent == null) {
+        final byte currentSlot = inventory.getActiveHotbarSlot();
+        
+        // Get tracking state (or initialize if first time)
+        final ChargeTrackerComponent tracker = (ChargeTrackerComponent) archetypeChunk.getComponent(
+                index,
+                ChargeTrackerComponent.getComponentType()
+        );
+        
+        // Restores that were pending when the player left their previous world start over in this one
+        if (tracker != null && tracker.takeTransferredRestores()) {
+            commandBuffer.run(s -> {
+                if (entityRef.isValid()) {
+                    this.rescheduleTransferredRestores(entityRef, s, inventory, tracker);
+                }
+            });
+        }
+        
+        // In event mode, slot changes arrive through SwitchActiveSlotEvent before vanilla resets
+        // the stats, so the handler reads them directly and nothing needs sampling here
+        final boolean eventDriven = settings.isEventSlotDetection();
+        final boolean stale = tracker != null && tracker.getConfigGeneration() != settings.getGeneration();
+        if (eventDriven && tracker != null && !stale) {
             return;
         }
-        final UUID playerUuid = uuidComponent.getUuid();
-        if (playerUuid == null) {
+        
+        // Read current stats (we track these every tick) from a single stat map fetch
+        final EntityStatMap statMap = (EntityStatMap) archetypeChunk.getComponent(index, EntityStatMap.getComponentType());
+        
+        if (stale) {
+            // The config was reloaded and this world may just have been re-enabled: whatever happened
+            // while it was off is not a swap we saw, so start tracking afresh
+            this.resync(tracker, settings, currentSlot, statMap);
             return;
         }
         
-        final byte currentSlot = inventory.getActiveHotbarSlot();
+        if (tracker == null) {
+            final ChargeTrackerComponent initial = new ChargeTrackerComponent(currentSlot, this.stats.size());
+            initial.track(statMap, this.stats);
+            initial.setConfigGeneration(settings.getGeneration());
+            commandBuffer.addComponent(entityRef, ChargeTrackerComponent.getComponentType(), initial);
+            commandBuffer.addComponent(entityRef, ConsumableSlotIndex.getComponentType(), new ConsumableSlotIndex());
+            this.log.log("Player first tick - initial slot: {}", currentSlot);
+            
+            // Charges still saved on the held weapon were pending a restore when the player last left
+            // (or the server went down): replay them now instead of waiting for a swap away and back
+            commandBuffer.run(s -> {
+                if (entityRef.isValid()) {
+                    this.replaySavedCharges(
+                            entityRef,
+                            inventory,
+                            initial,
+                            currentSlot,
+                            (RestoreQueue) s.getResource(RestoreQueue.getResourceType()),
+                            this.config.get(s)
+                    );
+                }
+            });
+            return;
+        }
         
-        // Read current stats (we track these every tick)
-        final float currentAmmo = this.getStatValue(entityRef, store, "Ammo");
-        final float currentMagicCharges = this.getStatValue(entityRef, store, "MagicCharges");
-        
-        // Get last known slot (or initialize if first time)
-        final Byte lastSlotObj = this.lastActiveSlot.get(playerUuid);
-        if (lastSlotObj == null) {
-            this.lastActiveSlot.put(playerUuid, currentSlot);
-            this.previousTickAmmo.put(playerUuid, currentAmmo);
-            this.previousTickMagicCharges.put(playerUuid, currentMagicCharges);
-            this.debug(String.format("Player first tick - initial slot: %d, ammo: %.0f, magicCharges: %.0f", 
-                    currentSlot, currentAmmo, currentMagicCharges));
+        final byte previousSlot = tracker.getLastActiveSlot();
+        final float[] valuesBeforeReset = this.poll(tracker, currentSlot, statMap);
+        if (valuesBeforeReset == null) {
             return;
         }
         
-        final byte previousSlot = lastSlotObj;
+        // Slot changed! Handle it with the stats from BEFORE the reset
+        this.log.log("Hotbar slot change: {} -> {}", previousSlot, currentSlot);
         
-        // Check if slot changed
-        if (currentSlot == previousSlot) {
-            // No slot change - just update the tracked stats for next tick
-            this.previousTickAmmo.put(playerUuid, currentAmmo);
-            this.previousTickMagicCharges.put(playerUuid, currentMagicCharges);
+        // Chunks may be ticking in parallel: hotbar writes and restore scheduling are deferred
+        // through the command buffer so they run serially once this system's chunks are done
+        commandBuffer.run(s -> {
+            if (entityRef.isValid()) {
+                this.handleSlotChange(entityRef, s, inventory, previousSlot, currentSlot, valuesBeforeReset);
+            }
+        });
+    }
+    
+    /**
+     * Poll one tracked player's active slot. If it is still the tracked one, this tick's stats are
+     * recorded for the next tick and null is returned. Otherwise tracking moves to the new slot and
+     * the stats from BEFORE the reset (the previous tick's values) are returned for the swap.
+     */
+    @Nullable
+    float[] poll(@Nonnull final ChargeTrackerComponent tracker, final byte currentSlot, @Nullable final EntityStatMap statMap) {
+        if (currentSlot == tracker.getLastActiveSlot()) {
+            tracker.track(statMap, this.stats);
+            return null;
+        }
+        tracker.setLastActiveSlot(currentSlot);
+        final float[] valuesBeforeReset = tracker.getPreviousValues().clone();
+        tracker.track(statMap, this.stats);
+        return valuesBeforeReset;
+    }
+    
+    /**
+     * Only asked from the per-entity dispatch, which the chunk tick only hands off to when the
+     * world's own snapshot enables ParallelTick, so the setting is not read again here.
+     */
+    @Override
+    public boolean isParallel(final int archetypeChunkSize, final int taskCount) {
+        // Per-player state is chunk-local and every shared mutation goes through the command buffer
+        return EntityTickingSystem.maybeUseParallel(archetypeChunkSize, taskCount);
+    }
+    
+    /**
+     * Restart tracking from the current state under the given settings.
+     * With no stat map, the values are picked up on the player's next tick.
+     */
+    private void resync(
+            @Nonnull final ChargeTrackerComponent tracker,
+            @Nonnull final ConfigSnapshot settings,
+            final byte currentSlot,
+            @Nullable final EntityStatMap statMap
+    ) {
+        tracker.setConfigGeneration(settings.getGeneration());
+        tracker.setLastActiveSlot(currentSlot);
+        if (statMap != null) {
+            tracker.track(statMap, this.stats);
+        }
+        this.log.log("Resynced tracking after a config reload, slot {}", currentSlot);
+    }
+    
+    // ==================== EVENT-DRIVEN SLOT DETECTION ====================
+    
+    /**
+     * Handle a hotbar slot switch reported by the server (event mode).
+     * Called from {@link BoltkeeperSlotSwitchSystem} before the switch happens, so {@code statMap}
+     * still holds the values vanilla is about to reset.
+     */
+    void onHotbarSwitch(
+            @Nonnull final Ref<EntityStore> entityRef,
+            @Nonnull final Store<EntityStore> store,
+            @Nonnull final Inventory inventory,
+            @Nonnull final ChargeTrackerComponent tracker,
+            @Nullable final EntityStatMap statMap,
+            final byte previousSlot,
+            final byte currentSlot
+    ) {
+        final ConfigSnapshot settings = this.config.get(store);
+        if (!settings.isEnabled() || previousSlot == currentSlot) {
             return;
         }
         
-        // Slot changed! Get the stats from BEFORE the reset (previous tick's values)
-        final Float ammoBeforeReset = this.previousTickAmmo.get(playerUuid);
-        final float savedAmmo = ammoBeforeReset != null ? ammoBeforeReset : 0f;
+        if (tracker.getConfigGeneration() != settings.getGeneration()) {
+            // Tracked values predate a config reload and may be stale, don't save them
+            this.resync(tracker, settings, currentSlot, null);
+            return;
+        }
         
-        final Float magicChargesBeforeReset = this.previousTickMagicCharges.get(playerUuid);
-        final float savedMagicCharges = magicChargesBeforeReset != null ? magicChargesBeforeReset : 0f;
+        tracker.setLastActiveSlot(currentSlot);
+        tracker.track(statMap, this.stats);
         
-        // Update tracking for next tick
-        this.lastActiveSlot.put(playerUuid, currentSlot);
-        this.previousTickAmmo.put(playerUuid, currentAmmo);
-        this.previousTickMagicCharges.put(playerUuid, currentMagicCharges);
+        this.log.log("Hotbar slot switch event: {} -> {}", previousSlot, currentSlot);
+        
+        this.handleSlotChange(entityRef, store, inventory, previousSlot, currentSlot, tracker.getPreviousValues());
+    }
+    
+    /**
+     * Keep the player's consumable slot index current after an inventory change.
+     */
+    public void onInventoryChange(@Nonnull final LivingEntityInventoryChangeEvent event) {
+        if (!(event.getEntity() instanceof Player player)) {
+            return;
+        }
         
-        this.debug(String.format("Hotbar slot change: %d -> %d (ammo: %.0f, magicCharges: %.0f)",
-                previousSlot, currentSlot, savedAmmo, savedMagicCharges));
+        final Ref<EntityStore> entityRef = player.getReference();
+        if (entityRef == null || !entityRef.isValid()) {
+            return;
+        }
         
-        // Handle the slot change
-        this.handleSlotChange(entityRef, store, inventory, previousSlot, currentSlot, savedAmmo, savedMagicCharges);
+        final Inventory inventory = player.getInventory();
+        if (inventory == null) {
+            return;
+        }
+        
+        final Store<EntityStore> store = entityRef.getStore();
+        
+        final ConsumableSlotIndex slotIndex = (ConsumableSlotIndex) store.getComponent(
+                entityRef,
+                ConsumableSlotIndex.getComponentType()
+        );
+        if (slotIndex == null) {
+            return;
+        }
+        
+        final ItemContainer changed = event.getItemContainer();
+        final int container = ConsumableSlotIndex.indexOf(inventory, changed);
+        // Containers we don't index (armor, utility...) need no update
+        if (container < 0) {
+            return;
+        }
+        if (event.getTransaction() instanceof SlotTransaction slotTransaction) {
+            slotIndex.onSlotChanged(container, changed, slotTransaction.getSlot());
+        } else {
+            slotIndex.markDirty(container);
+        }
     }
     
     private void handleSlotChange(
@@ -181,267 +379,425 @@ public class BoltkeeperSystem extends EntityTickingSystem<EntityStore> {
             @Nonnull final Inventory inventory,
             final byte previousSlot,
             final byte currentSlot,
-            final float ammoBeforeReset,
-            final float magicChargesBeforeReset
+            @Nonnull final float[] valuesBeforeReset
+    ) {
+        this.handleSlotChange(
+                entityRef,
+                inventory,
+                (ChargeTrackerComponent) store.getComponent(entityRef, ChargeTrackerComponent.getComponentType()),
+                previousSlot,
+                currentSlot,
+                valuesBeforeReset,
+                (WorldMetrics) store.getResource(WorldMetrics.getResourceType()),
+                (RestoreQueue) store.getResource(RestoreQueue.getResourceType()),
+                this.config.get(store)
+        );
+    }
+    
+    /**
+     * Handle a swap from {@code previousSlot} to {@code currentSlot}: save the charges of the weapon
+     * being left and schedule restores for the one being picked up. Takes the player's components and
+     * the world's resources already looked up, so it runs the same against any store.
+     */
+    void handleSlotChange(
+            @Nonnull final Ref<EntityStore> entityRef,
+            @Nonnull final Inventory inventory,
+            @Nullable final ChargeTrackerComponent tracker,
+            final byte previousSlot,
+            final byte currentSlot,
+            @Nonnull final float[] valuesBeforeReset,
+            @Nonnull final WorldMetrics worldMetrics,
+            @Nonnull final RestoreQueue restoreQueue,
+            @Nonnull final ConfigSnapshot settings
     ) {
         final ItemContainer hotbar = inventory.getHotbar();
-        ItemStack oldItem = hotbar.getItemStack((short) previousSlot);
-        ItemStack newItem = hotbar.getItemStack((short) currentSlot);
+        final ItemStack oldItem = hotbar.getItemStack((short) previousSlot);
+        final ItemStack newItem = hotbar.getItemStack((short) currentSlot);
         
-        this.debug(String.format("Hotbar swap: slot %d -> %d | Ammo: %.0f, MagicCharges: %.0f",
-                previousSlot, currentSlot, ammoBeforeReset, magicChargesBeforeReset));
-        this.debug(String.format("Old item: %s | New item: %s",
-                oldItem != null ? oldItem.getItem().getId() : "null",
-                newItem != null ? newItem.getItem().getId() : "null"));
-        
-        // ==================== HANDLE OLD ITEM (SAVE STATS) ====================
+        final WeaponProfile oldProfile = this.classifier.classify(oldItem);
+        final WeaponProfile newProfile = this.classifier.classify(newItem);
         
-        // Save ammo to the OLD item (if it's a crossbow with loaded ammo)
-        final boolean oldIsCrossbow = this.isCrossbow(oldItem);
-        if (oldIsCrossbow && ammoBeforeReset > 0) {
-            oldItem = this.saveAmmo(oldItem, ammoBeforeReset);
-            hotbar.setItemStackForSlot((short) previousSlot, oldItem);
-            this.debug(String.format("SAVED ammo %.0f to crossbow in slot %d", ammoBeforeReset, previousSlot));
+        if (this.log.isEnabled()) {
+            this.log.log("Hotbar swap | Old item: {} ({}) | New item: {} ({})",
+                    oldItem != null ? oldItem.getItem().getId() : "null", oldProfile,
+                    newItem != null ? newItem.getItem().getId() : "null", newProfile);
         }
         
-        // Save magic charges to the OLD item (if it's a fire staff with charges)
-        final boolean oldIsFireStaff = this.isFireStaff(oldItem);
-        if (oldIsFireStaff && magicChargesBeforeReset > 0) {
-            oldItem = this.saveMagicCharges(oldItem, magicChargesBeforeReset);
-            hotbar.setItemStackForSlot((short) previousSlot, oldItem);
-            this.debug(String.format("SAVED magicCharges %.0f to fire staff in slot %d", magicChargesBeforeReset, previousSlot));
+        this.metrics.recordSwap();
+        worldMetrics.recordSwap();
+        
+        // This swap supersedes any restore still pending from an earlier one. If the player is leaving
+        // the weapon such a restore was for, the stat never got its charges back: save those instead
+        final float[] valuesToSave = tracker != null
+                ? tracker.supersedeRestores(previousSlot, valuesBeforeReset)
+                : valuesBeforeReset;
+        
+        // ==================== HANDLE OLD ITEM (SAVE STATS) ====================
+        
+        // Save every preserved stat that still had charges to the OLD item
+        if (oldProfile != null) {
+            boolean hasCharges = false;
+            for (int i = 0; i < oldProfile.getStatCount(); i++) {
+                final int statSlot = oldProfile.getStatSlot(i);
+                if (valuesToSave[statSlot] > 0) {
+                    hasCharges = true;
+                    this.log.log("SAVED {} {} to {} in slot {}",
+                            this.stats.getName(statSlot), valuesToSave[statSlot], oldProfile, previousSlot);
+                }
+            }
+            if (hasCharges) {
+                hotbar.setItemStackForSlot((short) previousSlot, this.chargeMetadata.write(oldItem, oldProfile, valuesToSave));
+                this.metrics.recordSave(oldProfile.getIndex());
+            }
         }
         
         // ==================== HANDLE NEW ITEM (RESTORE STATS) ====================
         
-        final World world = ((EntityStore) store.getExternalData()).getWorld();
-        final long delayMs = this.config.getRestoreDelayMs();
-        
-        // Restore ammo for crossbow (and consume arrows from inventory to avoid duplication with vanilla's swap-away dump)
-        final boolean newIsCrossbow = this.isCrossbow(newItem);
-        if (newIsCrossbow) {
-            final Float savedAmmo = this.getSavedAmmo(newItem);
-            if (savedAmmo != null && savedAmmo > 0) {
-                newItem = this.clearSavedAmmo(newItem);
-                hotbar.setItemStackForSlot((short) currentSlot, newItem);
-                
-                final float ammoToRestore = savedAmmo;
-                this.debug(String.format("Scheduling restore of %.0f ammo in %dms (will consume arrows from inventory)", ammoToRestore, delayMs));
-                
-                this.scheduler.schedule(() -> {
-                    world.execute(() -> {
-                        final Player player = (Player) store.getComponent(entityRef, Player.getComponentType());
-                        if (player == null || !entityRef.isValid()) {
-                            return;
-                        }
-                        final Inventory inv = player.getInventory();
-                        if (inv == null) {
-                            return;
-                        }
-                        final int toConsume = (int) ammoToRestore;
-                        final int consumed = this.consumeArrowsFromInventory(inv, toConsume);
-                        if (consumed > 0) {
-                            this.setStatValue(entityRef, store, "Ammo", consumed);
-                            this.debug(String.format("RESTORED %d ammo for crossbow in slot %d (consumed %d arrows from inventory)", consumed, currentSlot, consumed));
-                        } else {
-                            this.debug(String.format("Restore skipped: no arrows in inventory to consume for slot %d", currentSlot));
-                        }
-                    });
-                }, delayMs, TimeUnit.MILLISECONDS);
-            }
+        // The saved entry stays on the NEW item until each restore applies, so a shutdown
+        // or crash before then loses nothing: the charges are still saved on the weapon
+        final float[] saved = newProfile != null ? this.chargeMetadata.read(newItem, newProfile) : null;
+        if (saved == null) {
+            return;
+        }
+        if (!ChargeMetadata.hasCharges(saved)) {
+            // Only 0-valued keys older versions left behind: nothing to restore, drop them now
+            hotbar.setItemStackForSlot((short) currentSlot, this.chargeMetadata.clear(newItem, newProfile));
+            return;
         }
+        this.scheduleRestores(entityRef, restoreQueue, settings, tracker, currentSlot, newProfile, saved);
+    }
+    
+    /**
+     * Schedule a restore for every saved stat of the weapon in {@code hotbarSlot}
+     * (arrow-backed stats consume arrows from inventory to avoid duplication with vanilla's swap-away dump).
+     */
+    private void scheduleRestores(
+            @Nonnull final Ref<EntityStore> entityRef,
+            @Nonnull final RestoreQueue restoreQueue,
+            @Nonnull final ConfigSnapshot settings,
+            @Nullable final ChargeTrackerComponent tracker,
+            final byte hotbarSlot,
+            @Nonnull final WeaponProfile profile,
+            @Nonnull final float[] saved
+    ) {
+        final long delayMs = settings.getRestoreDelayMs();
+        final boolean adaptive = settings.isAdaptiveRestore();
         
-        // Restore magic charges for fire staff
-        final boolean newIsFireStaff = this.isFireStaff(newItem);
-        if (newIsFireStaff) {
-            final Float savedMagicCharges = this.getSavedMagicCharges(newItem);
-            if (savedMagicCharges != null && savedMagicCharges > 0) {
-                newItem = this.clearSavedMagicCharges(newItem);
-                hotbar.setItemStackForSlot((short) currentSlot, newItem);
-                
-                final float chargesToRestore = savedMagicCharges;
-                this.debug(String.format("Scheduling restore of %.0f magicCharges in %dms", chargesToRestore, delayMs));
-                
-                this.scheduler.schedule(() -> {
-                    world.execute(() -> {
-                        this.setStatValue(entityRef, store, "MagicCharges", chargesToRestore);
-                        this.debug(String.format("RESTORED %.0f magicCharges for fire staff in slot %d", chargesToRestore, currentSlot));
-                    });
-                }, delayMs, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < profile.getStatCount(); i++) {
+            final int statSlot = profile.getStatSlot(i);
+            if (saved[i] <= 0) {
+                continue;
+            }
+            
+            this.log.log(adaptive ? "Scheduling restore of {} {} once reset (timeout {}ms)" : "Scheduling restore of {} {} in {}ms",
+                    saved[i], this.stats.getName(statSlot), delayMs);
+            final int generation = tracker != null
+                    ? tracker.addPendingRestore(hotbarSlot, statSlot, this.stats.size(), saved[i])
+                    : 0;
+            final PendingRestore restore = new PendingRestore(
+                    entityRef, profile, statSlot, saved[i], hotbarSlot, profile.isArrowBacked(i), generation);
+            if (adaptive) {
+                restoreQueue.scheduleOnReset(restore, delayMs);
+            } else {
+                restoreQueue.schedule(restore, delayMs);
             }
         }
     }
     
-    // ==================== WEAPON TYPE CHECKS ====================
+    /**
+     * Schedule restores for the charges still saved on the weapon a player holds on their first tick:
+     * they were pending when the player last left, or when the server went down.
+     */
+    void replaySavedCharges(
+            @Nonnull final Ref<EntityStore> entityRef,
+            @Nonnull final Inventory inventory,
+            @Nonnull final ChargeTrackerComponent tracker,
+            final byte hotbarSlot,
+            @Nonnull final RestoreQueue restoreQueue,
+            @Nonnull final ConfigSnapshot settings
+    ) {
+        final ItemStack heldItem = inventory.getHotbar().getItemStack((short) hotbarSlot);
+        final WeaponProfile heldProfile = this.classifier.classify(heldItem);
+        final float[] saved = heldProfile != null ? this.chargeMetadata.read(heldItem, heldProfile) : null;
+        if (saved != null) {
+            this.scheduleRestores(entityRef, restoreQueue, settings, tracker, hotbarSlot, heldProfile, saved);
+        }
+    }
     
     /**
-     * Check if an item is a crossbow weapon.
+     * Schedule, in this world, the restores a player still had pending when they left their previous world.
+     * The weapon has to still be in the slot they were for; otherwise the charges stay saved on it.
      */
-    private boolean isCrossbow(@Nullable final ItemStack item) {
-        if (item == null || item.isEmpty()) {
-            return false;
+    private void rescheduleTransferredRestores(
+            @Nonnull final Ref<EntityStore> entityRef,
+            @Nonnull final Store<EntityStore> store,
+            @Nonnull final Inventory inventory,
+            @Nonnull final ChargeTrackerComponent tracker
+    ) {
+        final byte hotbarSlot = tracker.getPendingSlot();
+        if (hotbarSlot < 0) {
+            return;
         }
-        if (item.getItem().getWeapon() == null) {
-            return false;
+        final ItemStack item = inventory.getHotbar().getItemStack((short) hotbarSlot);
+        final WeaponProfile profile = this.classifier.classify(item);
+        final float[] saved = profile != null ? this.chargeMetadata.read(item, profile) : null;
+        if (saved == null) {
+            this.log.log("Dropping restores carried over for slot {}: the weapon is no longer there", hotbarSlot);
+            return;
         }
-        final String itemId = item.getItem().getId();
-        return itemId != null && itemId.contains("Crossbow");
+        
+        this.scheduleRestores(
+                entityRef,
+                (RestoreQueue) store.getResource(RestoreQueue.getResourceType()),
+                this.config.get(store),
+                tracker,
+                hotbarSlot,
+                profile,
+                saved
+        );
+        ((WorldMetrics) store.getResource(WorldMetrics.getResourceType())).recordTransferIn();
+        this.log.log("Moved restores pending for slot {} into the new world", hotbarSlot);
     }
     
     /**
-     * Check if an item is a Fire Staff weapon.
+     * Whether the stat an adaptive restore is for currently sits at its minimum. The queue decides
+     * from a run of these whether the game's reset has happened. Called on the world thread by
+     * {@link BoltkeeperRestoreSystem}.
      */
-    private boolean isFireStaff(@Nullable final ItemStack item) {
-        if (item == null || item.isEmpty()) {
-            return false;
-        }
-        if (item.getItem().getWeapon() == null) {
+    boolean isStatAtMin(@Nonnull final PendingRestore restore, @Nonnull final Store<EntityStore> store) {
+        final Ref<EntityStore> entityRef = restore.getEntityRef();
+        if (!entityRef.isValid()) {
             return false;
         }
-        final String itemId = item.getItem().getId();
-        return itemId != null && itemId.equals("Weapon_Staff_Crystal_Flame");
+        final EntityStatMap statMap = (EntityStatMap) store.getComponent(entityRef, EntityStatMap.getComponentType());
+        return this.stats.isAtMin(statMap, restore.getStatSlot());
     }
     
     /**
-     * Clean up tracking data when a player disconnects.
+     * Apply the restores that became due this tick. Called on the world thread by {@link BoltkeeperRestoreSystem}.
+     * The queue hands out the restores of one swap as adjacent entries (see {@link RestoreQueue#advance(float)});
+     * each such run is applied together, with one write of the weapon's metadata for all of its stats.
      */
-    public void cleanupPlayer(@Nonnull final UUID playerUuid) {
-        this.lastActiveSlot.remove(playerUuid);
-        this.previousTickAmmo.remove(playerUuid);
-        this.previousTickMagicCharges.remove(playerUuid);
+    void applyRestores(@Nonnull final List<PendingRestore> due, @Nonnull final Store<EntityStore> store) {
+        final int n = due.size();
+        int start = 0;
+        while (start < n) {
+            final int end = endOfSwap(due, start);
+            final Ref<EntityStore> entityRef = due.get(start).getEntityRef();
+            if (entityRef.isValid()) {
+                final Player player = (Player) store.getComponent(entityRef, Player.getComponentType());
+                this.applyRestoreGroup(
+                        due,
+                        start,
+                        end,
+                        (ChargeTrackerComponent) store.getComponent(entityRef, ChargeTrackerComponent.getComponentType()),
+                        player != null ? player.getInventory() : null,
+                        (EntityStatMap) store.getComponent(entityRef, EntityStatMap.getComponentType()),
+                        (ConsumableSlotIndex) store.getComponent(entityRef, ConsumableSlotIndex.getComponentType()),
+                        (WorldMetrics) store.getResource(WorldMetrics.getResourceType())
+                );
+            }
+            start = end;
+        }
     }
     
-    // ==================== GENERIC STAT HELPERS ====================
+    /**
+     * End (exclusive) of the run of due restores that came from the same swap as the one at {@code start}.
+     */
+    static int endOfSwap(@Nonnull final List<PendingRestore> due, final int start) {
+        final PendingRestore first = due.get(start);
+        int end = start + 1;
+        while (end < due.size() && due.get(end).isSameSwap(first)) {
+            end++;
+        }
+        return end;
+    }
     
-    private float getStatValue(
-            @Nonnull final Ref<EntityStore> entityRef,
-            @Nonnull final Store<EntityStore> store,
-            @Nonnull final String statName
+    /**
+     * Apply the due restores at positions {@code start} (inclusive) to {@code end} (exclusive), which
+     * all come from the same swap: same player, hotbar slot, weapon profile and restore generation.
+     * Takes that player's components already looked up (null where the player has none).
+     */
+    void applyRestoreGroup(
+            @Nonnull final List<PendingRestore> due,
+            final int start,
+            final int end,
+            @Nullable final ChargeTrackerComponent tracker,
+            @Nullable final Inventory inv,
+            @Nullable final EntityStatMap statMap,
+            @Nullable final ConsumableSlotIndex slotIndex,
+            @Nonnull final WorldMetrics worldMetrics
     ) {
-        final int statIndex = EntityStatType.getAssetMap().getIndex(statName);
-        if (statIndex == Integer.MIN_VALUE) {
-            return 0f;
+        final PendingRestore first = due.get(start);
+        final int hotbarSlot = first.getHotbarSlot();
+        
+        // A later swap superseded these restores (and saved their amounts back to the item if needed)
+        if (tracker != null) {
+            if (tracker.getRestoreGeneration() != first.getGeneration()) {
+                for (int i = start; i < end; i++) {
+                    this.metrics.recordRestoreSuperseded();
+                    worldMetrics.recordRestoreSuperseded();
+                    this.log.log("Restore of {} for slot {} superseded by a later swap",
+                            this.stats.getName(due.get(i).getStatSlot()), hotbarSlot);
+                }
+                return;
+            }
+            for (int i = start; i < end; i++) {
+                tracker.clearPendingRestore(due.get(i).getStatSlot());
+            }
         }
         
-        final EntityStatMap statMap = (EntityStatMap) store.getComponent(
-                entityRef,
-                EntityStatMap.getComponentType()
-        );
+        if (inv == null) {
+            return;
+        }
         
-        if (statMap == null) {
-            return 0f;
+        // Take the stats' saved values off the weapon as they go back onto the stats. If the weapon
+        // isn't in the slot anymore or a value is gone, there is nothing (left) to restore for it.
+        // Bit i of applying stands for the profile's i-th stat (profiles have at most 64)
+        final ItemContainer hotbar = inv.getHotbar();
+        final ItemStack item = hotbar.getItemStack((short) hotbarSlot);
+        final WeaponProfile profile = first.getProfile();
+        final float[] saved = this.classifier.classify(item) == profile ? this.chargeMetadata.read(item, profile) : null;
+        long applying = 0L;
+        for (int i = start; i < end; i++) {
+            final PendingRestore restore = due.get(i);
+            final int statIndex = this.indexOfStat(profile, restore.getStatSlot());
+            if (saved == null || statIndex < 0 || saved[statIndex] <= 0 || (applying & (1L << statIndex)) != 0) {
+                this.log.log("Restore of {} for slot {} skipped: no saved value on the weapon",
+                        this.stats.getName(restore.getStatSlot()), hotbarSlot);
+                continue;
+            }
+            applying |= 1L << statIndex;
+        }
+        if (applying == 0L) {
+            return;
+        }
+        final ItemStackSlotTransaction clearTransaction = hotbar.setItemStackForSlot(
+                (short) hotbarSlot,
+                this.chargeMetadata.clearStats(item, profile, applying)
+        );
+        if (!clearTransaction.succeeded()) {
+            // The saved charges are still on the item, restoring now would duplicate them on the next swap
+            this.log.log("Clearing saved charges in slot {} failed, skipping restore", hotbarSlot);
+            return;
         }
         
-        final var statValue = statMap.get(statIndex);
-        return statValue != null ? statValue.get() : 0f;
+        for (int i = start; i < end; i++) {
+            final PendingRestore restore = due.get(i);
+            final int statIndex = this.indexOfStat(profile, restore.getStatSlot());
+            if (statIndex >= 0 && (applying & (1L << statIndex)) != 0) {
+                // Clear the bit so a duplicate entry for the same stat can't apply twice
+                applying &= ~(1L << statIndex);
+                this.applyRestore(restore, inv, statMap, slotIndex, worldMetrics);
+            }
+        }
     }
     
-    private void setStatValue(
-            @Nonnull final Ref<EntityStore> entityRef,
-            @Nonnull final Store<EntityStore> store,
-            @Nonnull final String statName,
-            final float value
+    /**
+     * Put one restore's amount back onto its stat, once its saved value is off the weapon.
+     */
+    private void applyRestore(
+            @Nonnull final PendingRestore restore,
+            @Nonnull final Inventory inv,
+            @Nullable final EntityStatMap statMap,
+            @Nullable final ConsumableSlotIndex slotIndex,
+            @Nonnull final WorldMetrics worldMetrics
     ) {
-        final int statIndex = EntityStatType.getAssetMap().getIndex(statName);
-        if (statIndex == Integer.MIN_VALUE) {
-            this.debug(String.format("setStatValue FAILED: %s stat not found!", statName));
+        final String statName = this.stats.getName(restore.getStatSlot());
+        if (restore.isArrowBacked()) {
+            // Before the player's first tick adds their index, a fresh one builds on first lookup
+            final int toConsume = (int) restore.getAmount();
+            final int consumed = this.consumeArrowsFromInventory(inv, slotIndex != null ? slotIndex : new ConsumableSlotIndex(), toConsume);
+            if (consumed > 0) {
+                this.setStatValue(statMap, restore.getStatSlot(), consumed);
+                this.metrics.recordRestore(restore.getProfile().getIndex(), restore.getScheduledAtNanos());
+                worldMetrics.recordRestore();
+                this.log.log("RESTORED {} {} for slot {} (consumed the same number of arrows from inventory)", consumed, statName, restore.getHotbarSlot());
+            } else {
+                this.log.log("Restore skipped: no arrows in inventory to consume for slot {}", restore.getHotbarSlot());
+            }
             return;
         }
         
-        if (!entityRef.isValid()) {
-            this.debug(String.format("setStatValue FAILED: entityRef is no longer valid for %s!", statName));
+        this.setStatValue(statMap, restore.getStatSlot(), restore.getAmount());
+        this.metrics.recordRestore(restore.getProfile().getIndex(), restore.getScheduledAtNanos());
+        worldMetrics.recordRestore();
+        this.log.log("RESTORED {} {} for slot {}", restore.getAmount(), statName, restore.getHotbarSlot());
+    }
+    
+    // ==================== GENERIC STAT HELPERS ====================
+    
+    /**
+     * Position of a tracked stat slot among the profile's stats, or -1 if the profile doesn't preserve it.
+     */
+    private int indexOfStat(@Nonnull final WeaponProfile profile, final int statSlot) {
+        for (int i = 0; i < profile.getStatCount(); i++) {
+            if (profile.getStatSlot(i) == statSlot) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    private void setStatValue(@Nullable final EntityStatMap statMap, final int statSlot, final float value) {
+        final String statName = this.stats.getName(statSlot);
+        final int statIndex = this.stats.getIndex(statSlot);
+        if (statIndex == Integer.MIN_VALUE) {
+            this.log.log("setStatValue FAILED: {} stat not found!", statName);
             return;
         }
         
-        final EntityStatMap statMap = (EntityStatMap) store.getComponent(
-                entityRef,
-                EntityStatMap.getComponentType()
-        );
-        
         if (statMap == null) {
-            this.debug(String.format("setStatValue FAILED: statMap is null for %s!", statName));
+            this.log.log("setStatValue FAILED: statMap is null for {}!", statName);
             return;
         }
         
         statMap.setStatValue(statIndex, value);
         
-        if (this.config.isDebug()) {
+        if (this.log.isEnabled()) {
             final var verify = statMap.get(statIndex);
             final float verifyValue = verify != null ? verify.get() : -1f;
-            this.debug(String.format("setStatValue(%s): set %.0f, verify read back: %.0f", statName, value, verifyValue));
+            this.log.log("setStatValue({}): set {}, verify read back: {}", statName, value, verifyValue);
         }
     }
     
-    // ==================== AMMO METADATA HELPERS (Crossbow) ====================
-    
-    @Nonnull
-    private ItemStack saveAmmo(@Nonnull final ItemStack item, final float ammo) {
-        return item.withMetadata(META_KEY_SAVED_AMMO, Codec.FLOAT, ammo);
-    }
-    
-    @Nullable
-    private Float getSavedAmmo(@Nonnull final ItemStack item) {
-        return (Float) item.getFromMetadataOrNull(META_KEY_SAVED_AMMO, Codec.FLOAT);
-    }
-    
-    @Nonnull
-    private ItemStack clearSavedAmmo(@Nonnull final ItemStack item) {
-        return item.withMetadata(META_KEY_SAVED_AMMO, Codec.FLOAT, 0f);
-    }
+    // ==================== ARROW CONSUMPTION ====================
     
     /**
      * Consume up to {@code count} arrow items from the player's inventory (hotbar, then storage, then backpack).
      * Used when restoring crossbow ammo so we don't duplicate arrows that vanilla put in inventory on swap-away.
+     * Only visits slots the consumable index says hold arrows.
      *
      * @return the number of arrows actually consumed
      */
-    private int consumeArrowsFromInventory(@Nonnull final Inventory inventory, final int count) {
+    int consumeArrowsFromInventory(
+            @Nonnull final Inventory inventory,
+            @Nonnull final ConsumableSlotIndex slotIndex,
+            final int count
+    ) {
         int remaining = count;
-        final ItemContainer[] containers = {
-                inventory.getHotbar(),
-                inventory.getStorage(),
-                inventory.getBackpack()
-        };
-        for (final ItemContainer container : containers) {
-            if (container == null || remaining <= 0) {
+        int scanned = 0;
+        for (int container = 0; container < ConsumableSlotIndex.CONTAINER_COUNT && remaining > 0; container++) {
+            final ItemContainer itemContainer = ConsumableSlotIndex.getContainer(inventory, container);
+            if (itemContainer == null) {
                 continue;
             }
-            final short capacity = container.getCapacity();
-            for (short slot = 0; slot < capacity && remaining > 0; slot++) {
-                final ItemStack stack = container.getItemStack(slot);
-                if (stack == null || stack.isEmpty() || !this.isArrow(stack)) {
-                    continue;
+            int slot = slotIndex.nextSlot(ConsumableSlotIndex.ARROW, container, itemContainer, 0);
+            while (slot >= 0 && remaining > 0) {
+                scanned++;
+                final ItemStack stack = itemContainer.getItemStack((short) slot);
+                // The index is only a hint: never take anything the matcher doesn't call an arrow
+                if (slotIndex.matches(stack, ConsumableSlotIndex.ARROW) && !stack.isEmpty()) {
+                    final int take = Math.min(remaining, stack.getQuantity());
+                    itemContainer.removeItemStackFromSlot((short) slot, take);
+                    remaining -= take;
                 }
-                final int take = Math.min(remaining, stack.getQuantity());
-                container.removeItemStackFromSlot(slot, take);
-                remaining -= take;
+                // Re-reads the slot, which also clears a stale bit
+                slotIndex.onSlotChanged(container, itemContainer, (short) slot);
+                slot = slotIndex.nextSlot(ConsumableSlotIndex.ARROW, container, itemContainer, slot + 1);
             }
         }
+        this.metrics.recordSlotsScanned(scanned);
         return count - remaining;
     }
-    
-    private boolean isArrow(@Nullable final ItemStack item) {
-        if (item == null || item.isEmpty()) {
-            return false;
-        }
-        final String id = item.getItem().getId();
-        return id != null && id.contains("Arrow");
-    }
-    
-    // ==================== MAGIC CHARGES METADATA HELPERS (Fire Staff) ====================
-    
-    @Nonnull
-    private ItemStack saveMagicCharges(@Nonnull final ItemStack item, final float charges) {
-        return item.withMetadata(META_KEY_SAVED_MAGIC_CHARGES, Codec.FLOAT, charges);
-    }
-    
-    @Nullable
-    private Float getSavedMagicCharges(@Nonnull final ItemStack item) {
-        return (Float) item.getFromMetadataOrNull(META_KEY_SAVED_MAGIC_CHARGES, Codec.FLOAT);
-    }
-    
-    @Nonnull
-    private ItemStack clearSavedMagicCharges(@Nonnull final ItemStack item) {
-        return item.withMetadata(META_KEY_SAVED_MAGIC_CHARGES, Codec.FLOAT, 0f);
-    }
 }
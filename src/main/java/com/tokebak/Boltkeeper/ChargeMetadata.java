@@ -0,0 +1,199 @@
+package com.tokebak.Boltkeeper;
+
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import org.bson.BsonDocument;
+import org.bson.BsonDouble;
+import org.bson.BsonValue;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Reads and writes preserved charges in weapon item metadata.
+ * 
+ * All preserved values live in one compact entry, {@code "BK_Charges": {"<Stat>": value, ...}},
+ * which is removed entirely once nothing is left in it. Every save or clear is a single
+ * {@link ItemStack#withMetadata} copy regardless of how many stats the profile preserves.
+ * 
+ * The entry doubles as the record of restores still pending: it stays on the weapon until each
+ * stat's restore actually applies, so charges survive a shutdown or crash in between.
+ * 
+ * Items saved by older versions carry one float key per stat ({@code BK_SavedAmmo},
+ * {@code BK_SavedMagicCharges}); those are read as a fallback and dropped on the next write.
+ */
+public class ChargeMetadata {
+    
+    /**
+     * Metadata key of the packed saved-charges entry.
+     */
+    public static final String META_KEY = "BK_Charges";
+    
+    /**
+     * Prefix of the legacy per-stat metadata keys, followed by the stat name.
+     */
+    public static final String LEGACY_META_KEY_PREFIX = "BK_Saved";
+    
+    private final ResolvedStats stats;
+    
+    /**
+     * Legacy metadata key per tracked stat slot.
+     */
+    private final String[] legacyKeys;
+    
+    public ChargeMetadata(@Nonnull final ResolvedStats stats) {
+        this.stats = stats;
+        this.legacyKeys = new String[stats.size()];
+        for (int slot = 0; slot < stats.size(); slot++) {
+            this.legacyKeys[slot] = LEGACY_META_KEY_PREFIX + stats.getName(slot);
+        }
+    }
+    
+    /**
+     * Read the saved value of each of the profile's stats (0 where nothing is saved).
+     * 
+     * @return values indexed like the profile's stats, or null if the item carries no saved charges at all
+     */
+    @Nullable
+    public float[] read(@Nullable final ItemStack item, @Nonnull final WeaponProfile profile) {
+        return this.read(item != null ? item.getMetadata() : null, profile);
+    }
+    
+    /**
+     * {@link #read(ItemStack, WeaponProfile)} on an item's metadata document.
+     */
+    @Nullable
+    public float[] read(@Nullable final BsonDocument metadata, @Nonnull final WeaponProfile profile) {
+        if (metadata == null || metadata.isEmpty()) {
+            return null;
+        }
+        
+        final BsonValue packedValue = metadata.get(META_KEY);
+        final BsonDocument packed = packedValue != null && packedValue.isDocument() ? packedValue.asDocument() : null;
+        
+        float[] values = null;
+        for (int i = 0; i < profile.getStatCount(); i++) {
+            final int statSlot = profile.getStatSlot(i);
+            BsonValue value = packed != null ? packed.get(this.stats.getName(statSlot)) : null;
+            if (value == null) {
+                // Saved by an older version, before charges were packed into one entry
+                value = metadata.get(this.legacyKeys[statSlot]);
+            }
+            if (value == null || !value.isNumber()) {
+                continue;
+            }
+            if (values == null) {
+                values = new float[profile.getStatCount()];
+            }
+            values[i] = (float) value.asNumber().doubleValue();
+        }
+        return values;
+    }
+    
+    /**
+     * Whether values returned by {@link #read} hold anything to restore. Items saved by older
+     * versions can carry legacy keys that are all 0.
+     */
+    public static boolean hasCharges(@Nullable final float[] values) {
+        if (values == null) {
+            return false;
+        }
+        for (final float value : values) {
+            if (value > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Save the profile's stats from {@code valuesBySlot} (indexed by tracked stat slot).
+     * Stats at 0 or below are removed rather than stored.
+     */
+    @Nonnull
+    public ItemStack write(@Nonnull final ItemStack item, @Nonnull final WeaponProfile profile, @Nonnull final float[] valuesBySlot) {
+        return item.withMetadata(this.write(item.getMetadata(), profile, valuesBySlot));
+    }
+    
+    /**
+     * {@link #write(ItemStack, WeaponProfile, float[])} on an item's metadata document.
+     * The document is not modified; returns the new metadata, or null if it ends up empty.
+     */
+    @Nullable
+    public BsonDocument write(
+            @Nullable final BsonDocument itemMetadata,
+            @Nonnull final WeaponProfile profile,
+            @Nonnull final float[] valuesBySlot
+    ) {
+        final BsonDocument metadata = copyMetadata(itemMetadata);
+        final BsonDocument packed = copyPacked(metadata);
+        for (int i = 0; i < profile.getStatCount(); i++) {
+            final int statSlot = profile.getStatSlot(i);
+            final float value = valuesBySlot[statSlot];
+            if (value > 0) {
+                packed.put(this.stats.getName(statSlot), new BsonDouble(value));
+            } else {
+                packed.remove(this.stats.getName(statSlot));
+            }
+            metadata.remove(this.legacyKeys[statSlot]);
+        }
+        return pack(metadata, packed);
+    }
+    
+    /**
+     * Remove every saved value of the profile's stats, dropping the entry (and metadata) if it ends up empty.
+     */
+    @Nonnull
+    public ItemStack clear(@Nonnull final ItemStack item, @Nonnull final WeaponProfile profile) {
+        final BsonDocument metadata = copyMetadata(item.getMetadata());
+        final BsonDocument packed = copyPacked(metadata);
+        for (int i = 0; i < profile.getStatCount(); i++) {
+            final int statSlot = profile.getStatSlot(i);
+            packed.remove(this.stats.getName(statSlot));
+            metadata.remove(this.legacyKeys[statSlot]);
+        }
+        return item.withMetadata(pack(metadata, packed));
+    }
+    
+    /**
+     * Remove the saved values of the profile's stats flagged in {@code cleared} (bit {@code i} for the
+     * profile's {@code i}-th stat), leaving the others in place.
+     */
+    @Nonnull
+    public ItemStack clearStats(@Nonnull final ItemStack item, @Nonnull final WeaponProfile profile, final long cleared) {
+        final BsonDocument metadata = copyMetadata(item.getMetadata());
+        final BsonDocument packed = copyPacked(metadata);
+        for (int i = 0; i < profile.getStatCount(); i++) {
+            if ((cleared & (1L << i)) == 0) {
+                continue;
+            }
+            final int statSlot = profile.getStatSlot(i);
+            packed.remove(this.stats.getName(statSlot));
+            metadata.remove(this.legacyKeys[statSlot]);
+        }
+        return item.withMetadata(pack(metadata, packed));
+    }
+    
+    @Nonnull
+    private static BsonDocument copyMetadata(@Nullable final BsonDocument metadata) {
+        return metadata != null ? metadata.clone() : new BsonDocument();
+    }
+    
+    @Nonnull
+    private static BsonDocument copyPacked(@Nonnull final BsonDocument metadata) {
+        final BsonValue packedValue = metadata.get(META_KEY);
+        return packedValue != null && packedValue.isDocument() ? packedValue.asDocument() : new BsonDocument();
+    }
+    
+    /**
+     * Put the packed entry back into the metadata (or drop it if empty). Returns null for empty metadata.
+     */
+    @Nullable
+    private static BsonDocument pack(@Nonnull final BsonDocument metadata, @Nonnull final BsonDocument packed) {
+        if (packed.isEmpty()) {
+            metadata.remove(META_KEY);
+        } else {
+            metadata.put(META_KEY, packed);
+        }
+        return metadata.isEmpty() ? null : metadata;
+    }
+}
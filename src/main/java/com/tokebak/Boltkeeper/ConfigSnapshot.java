@@ -0,0 +1,150 @@
+package com.tokebak.Boltkeeper;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Immutable view of the settings Boltkeeper reads while running.
+ * 
+ * Built from {@link BoltkeeperConfig} on load and on every reload, then published whole through
+ * {@link LiveConfig}, so world threads never see a half-applied change.
+ */
+public final class ConfigSnapshot {
+    
+    private final boolean enabled;
+    
+    private final boolean debug;
+    
+    private final long restoreDelayMs;
+    
+    private final boolean adaptiveRestore;
+    
+    private final boolean eventSlotDetection;
+    
+    private final boolean parallelTick;
+    
+    /**
+     * Changes only when a reload changes this snapshot's effective Enabled value, so trackers
+     * resync after tracking was off and carry on untouched across any other reload.
+     */
+    private final int generation;
+    
+    private ConfigSnapshot(
+            final int generation,
+            final boolean enabled,
+            final boolean debug,
+            final long restoreDelayMs,
+            final boolean adaptiveRestore,
+            final boolean eventSlotDetection,
+            final boolean parallelTick
+    ) {
+        this.generation = generation;
+        this.enabled = enabled;
+        this.debug = debug;
+        this.restoreDelayMs = restoreDelayMs;
+        this.adaptiveRestore = adaptiveRestore;
+        this.eventSlotDetection = eventSlotDetection;
+        this.parallelTick = parallelTick;
+    }
+    
+    @Nonnull
+    public static ConfigSnapshot of(@Nonnull final BoltkeeperConfig config, final int generation) {
+        return new ConfigSnapshot(
+                generation,
+                config.isEnabled(),
+                config.isDebug(),
+                Math.max(0L, config.getRestoreDelayMs()),
+                config.isAdaptiveRestore(),
+                config.isEventSlotDetection(),
+                config.isParallelTick()
+        );
+    }
+    
+    /**
+     * This snapshot with a world's overrides applied on top.
+     */
+    @Nonnull
+    public ConfigSnapshot with(@Nonnull final WorldOverrideConfig override) {
+        return new ConfigSnapshot(
+                this.generation,
+                override.getEnabled() != null ? override.getEnabled() : this.enabled,
+                this.debug,
+                override.getRestoreDelayMs() != null ? Math.max(0L, override.getRestoreDelayMs()) : this.restoreDelayMs,
+                this.adaptiveRestore,
+                this.eventSlotDetection,
+                override.getParallelTick() != null ? override.getParallelTick() : this.parallelTick
+        );
+    }
+    
+    /**
+     * This snapshot with another generation.
+     */
+    @Nonnull
+    public ConfigSnapshot withGeneration(final int generation) {
+        if (this.generation == generation) {
+            return this;
+        }
+        return new ConfigSnapshot(
+                generation,
+                this.enabled,
+                this.debug,
+                this.restoreDelayMs,
+                this.adaptiveRestore,
+                this.eventSlotDetection,
+                this.parallelTick
+        );
+    }
+    
+    /**
+     * This snapshot with the slot detection mode of another one (the mode can't change while running).
+     */
+    @Nonnull
+    public ConfigSnapshot withSlotDetectionOf(@Nonnull final ConfigSnapshot other) {
+        if (this.eventSlotDetection == other.eventSlotDetection) {
+            return this;
+        }
+        return new ConfigSnapshot(this.generation, this.enabled, this.debug, this.restoreDelayMs, this.adaptiveRestore, other.eventSlotDetection, this.parallelTick);
+    }
+    
+    public int getGeneration() {
+        return this.generation;
+    }
+    
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+    
+    public boolean isDebug() {
+        return this.debug;
+    }
+    
+    public long getRestoreDelayMs() {
+        return this.restoreDelayMs;
+    }
+    
+    /**
+     * Whether restores wait for the stat reset to be seen (with the restore delay as a timeout)
+     * rather than for the restore delay itself.
+     */
+    public boolean isAdaptiveRestore() {
+        return this.adaptiveRestore;
+    }
+    
+    public boolean isEventSlotDetection() {
+        return this.eventSlotDetection;
+    }
+    
+    public boolean isParallelTick() {
+        return this.parallelTick;
+    }
+    
+    @Nonnull
+    @Override
+    public String toString() {
+        return "enabled=" + this.enabled
+                + ", debug=" + this.debug
+                + ", restoreDelayMs=" + this.restoreDelayMs
+                + ", restoreMode=" + (this.adaptiveRestore ? BoltkeeperConfig.RESTORE_MODE_ADAPTIVE : BoltkeeperConfig.RESTORE_MODE_DELAY)
+                + ", slotDetection=" + (this.eventSlotDetection ? BoltkeeperConfig.SLOT_DETECTION_EVENT : BoltkeeperConfig.SLOT_DETECTION_POLL)
+                + ", parallelTick=" + this.parallelTick;
+    }
+}
@@ -0,0 +1,108 @@
+package com.tokebak.Boltkeeper;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the config file and runs a reload callback when it changes.
+ * 
+ * Editors often write a file in several steps, so events are coalesced: the callback runs once the
+ * file has been quiet for {@link #SETTLE_MILLIS}. Only events for the config file itself count,
+ * other files in the directory (like the debug log) may change constantly.
+ */
+public class ConfigWatcher {
+    
+    private static final long SETTLE_MILLIS = 250L;
+    
+    private final Path file;
+    
+    private final Runnable onChange;
+    
+    private WatchService watchService;
+    
+    private Thread thread;
+    
+    public ConfigWatcher(@Nonnull final Path file, @Nonnull final Runnable onChange) {
+        this.file = file;
+        this.onChange = onChange;
+    }
+    
+    public synchronized void start() {
+        if (this.thread != null) {
+            return;
+        }
+        try {
+            this.watchService = FileSystems.getDefault().newWatchService();
+            this.file.getParent().register(
+                    this.watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY
+            );
+        } catch (final IOException e) {
+            System.out.println("[BOLTKEEPER] Config hot reload unavailable: " + e.getMessage());
+            return;
+        }
+        this.thread = new Thread(this::run, "Boltkeeper-ConfigWatcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+    
+    public synchronized void stop() {
+        if (this.thread == null) {
+            return;
+        }
+        try {
+            this.watchService.close();
+        } catch (final IOException ignored) {
+            // Closing wakes the watcher thread either way
+        }
+        this.thread.interrupt();
+        this.thread = null;
+    }
+    
+    private void run() {
+        final WatchService service = this.watchService;
+        final Path fileName = this.file.getFileName();
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = false;
+                long quietAt = 0L;
+                // Keep draining until the config file has been quiet for a moment
+                while (key != null) {
+                    for (final WatchEvent<?> event : key.pollEvents()) {
+                        if (fileName.equals(event.context())) {
+                            changed = true;
+                            quietAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SETTLE_MILLIS);
+                        }
+                    }
+                    if (!key.reset()) {
+                        return;
+                    }
+                    if (!changed) {
+                        break;
+                    }
+                    final long wait = quietAt - System.nanoTime();
+                    key = wait > 0 ? service.poll(wait, TimeUnit.NANOSECONDS) : null;
+                }
+                if (changed) {
+                    try {
+                        this.onChange.run();
+                    } catch (final RuntimeException e) {
+                        System.out.println("[BOLTKEEPER] Config reload failed: " + e.getMessage());
+                    }
+                }
+            }
+        } catch (final InterruptedException | ClosedWatchServiceException e) {
+            // Stopped
+        }
+    }
+}
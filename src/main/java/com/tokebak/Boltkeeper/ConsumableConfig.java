@@ -0,0 +1,61 @@
+package com.tokebak.Boltkeeper;
+
+import com.hypixel.hytale.codec.Codec;
+import com.hypixel.hytale.codec.KeyedCodec;
+import com.hypixel.hytale.codec.builder.BuilderCodec;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+
+/**
+ * Config entry declaring which items count as one kind of consumable (arrows, essence).
+ */
+public class ConsumableConfig {
+
+    public static final BuilderCodec<ConsumableConfig> CODEC = BuilderCodec
+            .builder(ConsumableConfig.class, ConsumableConfig::new)
+            .append(new KeyedCodec<>("Items", Codec.STRING_ARRAY),
+                    (consumable, value) -> consumable.items = value,
+                    consumable -> consumable.items)
+            .add()
+            .append(new KeyedCodec<>("ItemIdContains", Codec.STRING_ARRAY),
+                    (consumable, value) -> consumable.itemIdContains = value,
+                    consumable -> consumable.itemIdContains)
+            .add()
+            .build();
+
+    /**
+     * Exact item ids of this kind.
+     */
+    private String[] items = new String[0];
+
+    /**
+     * Items whose id contains any of these are of this kind. Evaluated once per asset load.
+     */
+    private String[] itemIdContains = new String[0];
+
+    public ConsumableConfig() {
+    }
+
+    public ConsumableConfig(@Nonnull final String[] items, @Nonnull final String[] itemIdContains) {
+        this.items = items;
+        this.itemIdContains = itemIdContains;
+    }
+
+    public String[] getItems() {
+        return this.items;
+    }
+
+    public String[] getItemIdContains() {
+        return this.itemIdContains;
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return "ConsumableConfig{" +
+                "items=" + Arrays.toString(items) +
+                ", itemIdContains=" + Arrays.toString(itemIdContains) +
+                '}';
+    }
+}
@@ -0,0 +1,157 @@
+package com.tokebak.Boltkeeper;
+
+import com.hypixel.hytale.server.core.asset.type.item.config.Item;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Precomputed item to consumable kind table.
+ * 
+ * Built once whenever Item assets (re)load from the configured consumables, keyed by {@link Item}
+ * identity like {@link WeaponClassifier}. Each item maps to a bitmask of the kinds it belongs to
+ * (bit {@code kind}, see {@link com.tokebak.Boltkeeper.components.ConsumableSlotIndex}). The masks
+ * live in a primitive open-addressing table, so matching a stack is an identity hash, a probe or two
+ * over an array and a bit test, with no string comparison and no unboxing.
+ */
+public class ConsumableMatcher {
+    
+    /**
+     * Consumable configs indexed by kind.
+     */
+    private final ConsumableConfig[] kinds;
+    
+    /**
+     * Replaced wholesale on rebuild so readers always see a complete table.
+     */
+    private volatile KindTable table = new KindTable(new IdentityHashMap<>());
+    
+    /**
+     * Bumped on every rebuild, so slot indexes built against an older table know to rebuild.
+     */
+    private volatile int generation;
+    
+    public ConsumableMatcher(@Nonnull final ConsumableConfig[] kinds) {
+        if (kinds.length > Integer.SIZE) {
+            throw new IllegalArgumentException("At most " + Integer.SIZE + " consumable kinds are supported");
+        }
+        this.kinds = kinds;
+    }
+    
+    /**
+     * Rebuild the table from the currently loaded Item assets.
+     */
+    public void rebuild() {
+        this.rebuild(Item.getAssetMap().getAssetMap());
+    }
+    
+    /**
+     * Rebuild the table from the given items, keyed by item id.
+     */
+    public void rebuild(@Nonnull final Map<String, Item> items) {
+        final Map<Item, Integer> rebuilt = new IdentityHashMap<>();
+        
+        for (final Item item : items.values()) {
+            if (item.getId() == null) {
+                continue;
+            }
+            int mask = 0;
+            for (int kind = 0; kind < this.kinds.length; kind++) {
+                for (final String pattern : this.kinds[kind].getItemIdContains()) {
+                    if (item.getId().contains(pattern)) {
+                        mask |= 1 << kind;
+                    }
+                }
+            }
+            if (mask != 0) {
+                rebuilt.put(item, mask);
+            }
+        }
+        
+        for (int kind = 0; kind < this.kinds.length; kind++) {
+            for (final String itemId : this.kinds[kind].getItems()) {
+                final Item item = items.get(itemId);
+                if (item == null) {
+                    System.out.println("[BOLTKEEPER] Unknown consumable item: " + itemId);
+                    continue;
+                }
+                rebuilt.merge(item, 1 << kind, (a, b) -> a | b);
+            }
+        }
+        
+        this.table = new KindTable(rebuilt);
+        this.generation++;
+        System.out.println("[BOLTKEEPER] Classified " + rebuilt.size() + " consumable items");
+    }
+    
+    public int getGeneration() {
+        return this.generation;
+    }
+    
+    /**
+     * Bitmask of the consumable kinds a stack belongs to (0 for none or an empty stack).
+     */
+    public int kindsOf(@Nullable final ItemStack stack) {
+        if (stack == null || stack.isEmpty()) {
+            return 0;
+        }
+        return this.table.get(stack.getItem());
+    }
+    
+    public boolean matches(@Nullable final ItemStack stack, final int kind) {
+        return (this.kindsOf(stack) & (1 << kind)) != 0;
+    }
+    
+    /**
+     * Immutable identity-keyed map from {@link Item} to kind mask, as two parallel arrays probed
+     * linearly from the item's identity hash. Kept at most half full, so a miss ends at an empty slot quickly.
+     */
+    private static final class KindTable {
+        
+        private final Item[] items;
+        
+        private final int[] masks;
+        
+        private final int mask;
+        
+        private KindTable(@Nonnull final Map<Item, Integer> entries) {
+            final int capacity = Integer.highestOneBit(Math.max(1, entries.size()) * 2 - 1) << 1;
+            this.items = new Item[capacity];
+            this.masks = new int[capacity];
+            this.mask = capacity - 1;
+            for (final Map.Entry<Item, Integer> entry : entries.entrySet()) {
+                int i = slotOf(entry.getKey(), this.mask);
+                while (this.items[i] != null) {
+                    i = (i + 1) & this.mask;
+                }
+                this.items[i] = entry.getKey();
+                this.masks[i] = entry.getValue();
+            }
+        }
+        
+        private int get(@Nullable final Item item) {
+            if (item == null) {
+                return 0;
+            }
+            int i = slotOf(item, this.mask);
+            while (true) {
+                final Item key = this.items[i];
+                if (key == item) {
+                    return this.masks[i];
+                }
+                if (key == null) {
+                    return 0;
+                }
+                i = (i + 1) & this.mask;
+            }
+        }
+        
+        private static int slotOf(@Nonnull final Item item, final int mask) {
+            final int hash = System.identityHashCode(item);
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+    }
+}
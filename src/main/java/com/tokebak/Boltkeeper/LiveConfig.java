@@ -0,0 +1,125 @@
+package com.tokebak.Boltkeeper;
+
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The current {@link ConfigSnapshot}, globally and per world, behind a single volatile reference.
+ * 
+ * A reload builds every snapshot first and then swaps the reference, so a reader sees either the
+ * old settings or the new ones, never a mix. Only the runtime settings in the snapshot are live:
+ * weapon profiles, consumables and the slot detection mode are read once at startup.
+ */
+public class LiveConfig {
+    
+    private static final class Published {
+        private final ConfigSnapshot global;
+        private final Map<String, ConfigSnapshot> worlds;
+        
+        private Published(@Nonnull final ConfigSnapshot global, @Nonnull final Map<String, ConfigSnapshot> worlds) {
+            this.global = global;
+            this.worlds = worlds;
+        }
+    }
+    
+    private volatile Published published;
+    
+    /**
+     * Last generation handed out. Only touched by publishes, which are serialized.
+     */
+    private int lastGeneration;
+    
+    public LiveConfig(@Nonnull final BoltkeeperConfig config) {
+        this.published = this.build(config, null);
+    }
+    
+    /**
+     * Publish a freshly loaded config. Returns the new global snapshot.
+     */
+    @Nonnull
+    public synchronized ConfigSnapshot publish(@Nonnull final BoltkeeperConfig config) {
+        final Published current = this.published;
+        final Published next = this.build(config, current);
+        if (next.global.isEventSlotDetection() != config.isEventSlotDetection()) {
+            System.out.println("[BOLTKEEPER] SlotDetection changes apply after a restart");
+        }
+        this.published = next;
+        return next.global;
+    }
+    
+    /**
+     * Global settings (worlds without an override).
+     */
+    @Nonnull
+    public ConfigSnapshot get() {
+        return this.published.global;
+    }
+    
+    /**
+     * Settings for the world a store belongs to.
+     */
+    @Nonnull
+    public ConfigSnapshot get(@Nonnull final Store<EntityStore> store) {
+        final Published current = this.published;
+        if (current.worlds.isEmpty()) {
+            return current.global;
+        }
+        final World world = store.getExternalData().getWorld();
+        return world != null ? current.worlds.getOrDefault(world.getName(), current.global) : current.global;
+    }
+    
+    /**
+     * Build every snapshot for a config. A snapshot keeps the generation of the one it replaces
+     * unless its effective Enabled value changed, so a reload of other settings resyncs nobody.
+     */
+    @Nonnull
+    private Published build(@Nonnull final BoltkeeperConfig config, @Nullable final Published previous) {
+        ConfigSnapshot global = ConfigSnapshot.of(config, 0);
+        if (previous != null) {
+            global = this.carryGeneration(global.withSlotDetectionOf(previous.global), previous.global);
+        }
+        
+        final Map<String, ConfigSnapshot> worlds = new HashMap<>();
+        for (final WorldOverrideConfig override : config.getWorldOverrides()) {
+            if (override.getWorld() == null || override.getWorld().isEmpty()) {
+                System.out.println("[BOLTKEEPER] Ignoring world override without a World name");
+                continue;
+            }
+            ConfigSnapshot snapshot = global.with(override);
+            if (previous != null) {
+                snapshot = this.carryGeneration(snapshot, previous.worlds.getOrDefault(override.getWorld(), previous.global));
+            }
+            worlds.put(override.getWorld(), snapshot);
+        }
+        if (previous == null) {
+            return new Published(global, worlds);
+        }
+        
+        // A world whose override was removed now follows the global settings; it keeps its own
+        // entry for as long as its generation differs from the global one
+        for (final Map.Entry<String, ConfigSnapshot> entry : previous.worlds.entrySet()) {
+            if (worlds.containsKey(entry.getKey())) {
+                continue;
+            }
+            final ConfigSnapshot snapshot = this.carryGeneration(global, entry.getValue());
+            if (snapshot.getGeneration() != global.getGeneration()) {
+                worlds.put(entry.getKey(), snapshot);
+            }
+        }
+        return new Published(global, worlds);
+    }
+    
+    @Nonnull
+    private ConfigSnapshot carryGeneration(@Nonnull final ConfigSnapshot next, @Nonnull final ConfigSnapshot before) {
+        if (next.isEnabled() == before.isEnabled()) {
+            return next.withGeneration(before.getGeneration());
+        }
+        return next.withGeneration(++this.lastGeneration);
+    }
+}
@@ -0,0 +1,129 @@
+package com.tokebak.Boltkeeper;
+
+import com.hypixel.hytale.server.core.modules.entitystats.EntityStatMap;
+import com.hypixel.hytale.server.core.modules.entitystats.asset.EntityStatType;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Registry of the entity stats Boltkeeper tracks, with their asset indices resolved up front.
+ * 
+ * Every stat preserved by any weapon profile gets a tracked stat slot (0..size-1), which is what
+ * per-player state arrays and pending restores are indexed by. Stat indices are looked up once at
+ * setup (and again whenever EntityStatType assets reload), so the per-tick path only does array
+ * reads against an already-fetched {@link EntityStatMap}.
+ */
+public class ResolvedStats {
+    
+    private final String[] names;
+    
+    /**
+     * Asset index per tracked stat slot, or {@link Integer#MIN_VALUE} if the stat is not loaded.
+     * Replaced wholesale on refresh so readers always see a consistent set.
+     */
+    private volatile int[] indices;
+    
+    public ResolvedStats(@Nonnull final String[] names) {
+        this.names = names;
+        this.indices = new int[names.length];
+        Arrays.fill(this.indices, Integer.MIN_VALUE);
+    }
+    
+    /**
+     * Track every stat preserved by any of the given profiles, in first-seen order.
+     */
+    @Nonnull
+    public static ResolvedStats fromProfiles(@Nonnull final WeaponProfileConfig[] profiles) {
+        final List<String> names = new ArrayList<>();
+        for (final WeaponProfileConfig profile : profiles) {
+            for (final String stat : profile.getStats()) {
+                if (!names.contains(stat)) {
+                    names.add(stat);
+                }
+            }
+        }
+        return new ResolvedStats(names.toArray(new String[0]));
+    }
+    
+    /**
+     * Re-resolve every tracked stat against the current EntityStatType asset map.
+     */
+    public void refresh() {
+        this.refresh(name -> EntityStatType.getAssetMap().getIndex(name));
+    }
+    
+    /**
+     * Re-resolve every tracked stat with the given name to stat index lookup.
+     */
+    public void refresh(@Nonnull final ToIntFunction<String> indexOf) {
+        final int[] resolved = new int[this.names.length];
+        for (int slot = 0; slot < this.names.length; slot++) {
+            resolved[slot] = indexOf.applyAsInt(this.names[slot]);
+        }
+        this.indices = resolved;
+    }
+    
+    /**
+     * Number of tracked stats.
+     */
+    public int size() {
+        return this.names.length;
+    }
+    
+    /**
+     * Tracked stat slot of a stat name, or -1 if it isn't tracked.
+     */
+    public int getSlot(@Nonnull final String name) {
+        for (int slot = 0; slot < this.names.length; slot++) {
+            if (this.names[slot].equals(name)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+    
+    @Nonnull
+    public String getName(final int slot) {
+        return this.names[slot];
+    }
+    
+    public int getIndex(final int slot) {
+        return this.indices[slot];
+    }
+    
+    /**
+     * Read a tracked stat from an already-fetched stat map. Returns 0 if the stat is unavailable.
+     */
+    public float read(@Nullable final EntityStatMap statMap, final int slot) {
+        if (statMap == null) {
+            return 0f;
+        }
+        final int statIndex = this.indices[slot];
+        if (statIndex == Integer.MIN_VALUE) {
+            return 0f;
+        }
+        final var statValue = statMap.get(statIndex);
+        return statValue != null ? statValue.get() : 0f;
+    }
+    
+    /**
+     * Whether a tracked stat sits at its minimum, as it does right after the game resets it.
+     * False if the stat is unavailable.
+     */
+    public boolean isAtMin(@Nullable final EntityStatMap statMap, final int slot) {
+        if (statMap == null) {
+            return false;
+        }
+        final int statIndex = this.indices[slot];
+        if (statIndex == Integer.MIN_VALUE) {
+            return false;
+        }
+        final var statValue = statMap.get(statIndex);
+        return statValue != null && statValue.get() <= statValue.getMin();
+    }
+}
@@ -0,0 +1,89 @@
+package com.tokebak.Boltkeeper;
+
+import com.hypixel.hytale.server.core.asset.type.item.config.Item;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Precomputed item to {@link WeaponProfile} table.
+ * 
+ * Built once whenever Item assets (re)load, keyed by {@link Item} identity, so classifying the
+ * stack in a hotbar slot is a single identity-hash lookup with no string matching or allocation.
+ */
+public class WeaponClassifier {
+    
+    private final WeaponProfileConfig[] profileConfigs;
+    
+    private final WeaponProfile[] profiles;
+    
+    /**
+     * Replaced wholesale on rebuild so readers always see a complete table.
+     */
+    private volatile Map<Item, WeaponProfile> table = new IdentityHashMap<>();
+    
+    public WeaponClassifier(@Nonnull final WeaponProfileConfig[] profileConfigs, @Nonnull final ResolvedStats stats) {
+        this.profileConfigs = profileConfigs;
+        this.profiles = new WeaponProfile[profileConfigs.length];
+        for (int i = 0; i < profileConfigs.length; i++) {
+            this.profiles[i] = WeaponProfile.compile(profileConfigs[i], i, stats);
+        }
+    }
+    
+    /**
+     * Rebuild the table from the currently loaded Item assets.
+     * Id patterns are matched against weapon items, then exact item ids are applied on top.
+     * When several profiles claim an item, the later one in config wins.
+     */
+    public void rebuild() {
+        this.rebuild(Item.getAssetMap().getAssetMap());
+    }
+    
+    /**
+     * Rebuild the table from the given items, keyed by item id.
+     */
+    public void rebuild(@Nonnull final Map<String, Item> items) {
+        final Map<Item, WeaponProfile> rebuilt = new IdentityHashMap<>();
+        
+        for (final Item item : items.values()) {
+            if (item.getWeapon() == null || item.getId() == null) {
+                continue;
+            }
+            for (int i = 0; i < this.profiles.length; i++) {
+                for (final String pattern : this.profileConfigs[i].getItemIdContains()) {
+                    if (item.getId().contains(pattern)) {
+                        rebuilt.put(item, this.profiles[i]);
+                    }
+                }
+            }
+        }
+        
+        for (int i = 0; i < this.profiles.length; i++) {
+            for (final String itemId : this.profileConfigs[i].getItems()) {
+                final Item item = items.get(itemId);
+                if (item == null) {
+                    System.out.println("[BOLTKEEPER] Unknown item in weapon profile " + this.profiles[i] + ": " + itemId);
+                    continue;
+                }
+                rebuilt.put(item, this.profiles[i]);
+            }
+        }
+        
+        this.table = rebuilt;
+        System.out.println("[BOLTKEEPER] Classified " + rebuilt.size() + " supported weapon items");
+    }
+    
+    /**
+     * Get the weapon profile of a stack, or null if Boltkeeper doesn't handle it.
+     */
+    @Nullable
+    public WeaponProfile classify(@Nullable final ItemStack stack) {
+        if (stack == null || stack.isEmpty()) {
+            return null;
+        }
+        return this.table.get(stack.getItem());
+    }
+}
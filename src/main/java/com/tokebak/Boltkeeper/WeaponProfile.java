@@ -0,0 +1,96 @@
+package com.tokebak.Boltkeeper;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A weapon profile resolved against the tracked stats: which {@link ResolvedStats} slots
+ * a weapon of this kind preserves across swaps.
+ */
+public class WeaponProfile {
+    
+    private final String id;
+    
+    private final int index;
+    
+    private final int[] statSlots;
+    
+    private final boolean[] arrowBacked;
+    
+    private WeaponProfile(
+            @Nonnull final String id,
+            final int index,
+            @Nonnull final int[] statSlots,
+            @Nonnull final boolean[] arrowBacked
+    ) {
+        this.id = id;
+        this.index = index;
+        this.statSlots = statSlots;
+        this.arrowBacked = arrowBacked;
+    }
+    
+    /**
+     * Resolve a profile config against the tracked stats (which must include all of its stats).
+     * A profile preserves at most 64 stats, so a set of them fits in a {@code long} bitmask.
+     */
+    @Nonnull
+    public static WeaponProfile compile(
+            @Nonnull final WeaponProfileConfig config,
+            final int index,
+            @Nonnull final ResolvedStats stats
+    ) {
+        final String[] statNames = config.getStats();
+        if (statNames.length > Long.SIZE) {
+            throw new IllegalArgumentException("At most " + Long.SIZE + " stats per weapon profile are supported: " + config.getId());
+        }
+        final int[] statSlots = new int[statNames.length];
+        final boolean[] arrowBacked = new boolean[statNames.length];
+        for (int i = 0; i < statNames.length; i++) {
+            statSlots[i] = stats.getSlot(statNames[i]);
+            for (final String arrowBackedStat : config.getArrowBackedStats()) {
+                if (arrowBackedStat.equals(statNames[i])) {
+                    arrowBacked[i] = true;
+                }
+            }
+        }
+        return new WeaponProfile(config.getId(), index, statSlots, arrowBacked);
+    }
+    
+    @Nonnull
+    public String getId() {
+        return this.id;
+    }
+    
+    /**
+     * Position of this profile in the configured profile list (used to index per-profile metrics).
+     */
+    public int getIndex() {
+        return this.index;
+    }
+    
+    /**
+     * Number of stats this profile preserves.
+     */
+    public int getStatCount() {
+        return this.statSlots.length;
+    }
+    
+    /**
+     * The tracked stat slot of this profile's {@code i}-th preserved stat.
+     */
+    public int getStatSlot(final int i) {
+        return this.statSlots[i];
+    }
+    
+    /**
+     * Whether restoring this profile's {@code i}-th stat consumes arrows from the inventory.
+     */
+    public boolean isArrowBacked(final int i) {
+        return this.arrowBacked[i];
+    }
+    
+    @Nonnull
+    @Override
+    public String toString() {
+        return this.id;
+    }
+}
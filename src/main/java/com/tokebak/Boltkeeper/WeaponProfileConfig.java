@@ -0,0 +1,113 @@
+package com.tokebak.Boltkeeper;
+
+import com.hypixel.hytale.codec.Codec;
+import com.hypixel.hytale.codec.KeyedCodec;
+import com.hypixel.hytale.codec.builder.BuilderCodec;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+
+/**
+ * Config entry declaring a weapon profile: which items belong to it and which stats it preserves.
+ */
+public class WeaponProfileConfig {
+
+    public static final BuilderCodec<WeaponProfileConfig> CODEC = BuilderCodec
+            .builder(WeaponProfileConfig.class, WeaponProfileConfig::new)
+            .append(new KeyedCodec<>("Id", Codec.STRING),
+                    (profile, value) -> profile.id = value,
+                    profile -> profile.id)
+            .add()
+            .append(new KeyedCodec<>("Stats", Codec.STRING_ARRAY),
+                    (profile, value) -> profile.stats = value,
+                    profile -> profile.stats)
+            .add()
+            .append(new KeyedCodec<>("ArrowBackedStats", Codec.STRING_ARRAY),
+                    (profile, value) -> profile.arrowBackedStats = value,
+                    profile -> profile.arrowBackedStats)
+            .add()
+            .append(new KeyedCodec<>("Items", Codec.STRING_ARRAY),
+                    (profile, value) -> profile.items = value,
+                    profile -> profile.items)
+            .add()
+            .append(new KeyedCodec<>("ItemIdContains", Codec.STRING_ARRAY),
+                    (profile, value) -> profile.itemIdContains = value,
+                    profile -> profile.itemIdContains)
+            .add()
+            .build();
+
+    /**
+     * Profile name, used in logs.
+     */
+    private String id = "";
+
+    /**
+     * Stats preserved across swaps for weapons of this profile.
+     */
+    private String[] stats = new String[0];
+
+    /**
+     * Stats whose loaded amount is backed by arrows (vanilla returns them to the inventory on swap-away),
+     * so restoring them consumes that many arrows instead of creating them from nothing.
+     */
+    private String[] arrowBackedStats = new String[0];
+
+    /**
+     * Exact item ids belonging to this profile.
+     */
+    private String[] items = new String[0];
+
+    /**
+     * Weapon items whose id contains any of these belong to this profile. Evaluated once per asset load.
+     */
+    private String[] itemIdContains = new String[0];
+
+    public WeaponProfileConfig() {
+    }
+
+    public WeaponProfileConfig(
+            @Nonnull final String id,
+            @Nonnull final String[] stats,
+            @Nonnull final String[] arrowBackedStats,
+            @Nonnull final String[] items,
+            @Nonnull final String[] itemIdContains
+    ) {
+        this.id = id;
+        this.stats = stats;
+        this.arrowBackedStats = arrowBackedStats;
+        this.items = items;
+        this.itemIdContains = itemIdContains;
+    }
+
+    public String getId() {
+        return this.id;
+    }
+
+    public String[] getStats() {
+        return this.stats;
+    }
+
+    public String[] getArrowBackedStats() {
+        return this.arrowBackedStats;
+    }
+
+    public String[] getItems() {
+        return this.items;
+    }
+
+    public String[] getItemIdContains() {
+        return this.itemIdContains;
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return "WeaponProfileConfig{" +
+                "id=" + id +
+                ", stats=" + Arrays.toString(stats) +
+                ", arrowBackedStats=" + Arrays.toString(arrowBackedStats) +
+                ", items=" + Arrays.toString(items) +
+                ", itemIdContains=" + Arrays.toString(itemIdContains) +
+                '}';
+    }
+}
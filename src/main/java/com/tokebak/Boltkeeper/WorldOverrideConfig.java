@@ -0,0 +1,78 @@
+package com.tokebak.Boltkeeper;
+
+import com.hypixel.hytale.codec.Codec;
+import com.hypixel.hytale.codec.KeyedCodec;
+import com.hypixel.hytale.codec.builder.BuilderCodec;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Config entry overriding some settings for one world. Unset fields keep the global value.
+ */
+public class WorldOverrideConfig {
+
+    public static final BuilderCodec<WorldOverrideConfig> CODEC = BuilderCodec
+            .builder(WorldOverrideConfig.class, WorldOverrideConfig::new)
+            .append(new KeyedCodec<>("World", Codec.STRING),
+                    (override, value) -> override.world = value,
+                    override -> override.world)
+            .add()
+            .append(new KeyedCodec<>("Enabled", Codec.BOOLEAN),
+                    (override, value) -> override.enabled = value,
+                    override -> override.enabled)
+            .add()
+            .append(new KeyedCodec<>("RestoreDelayMs", Codec.LONG),
+                    (override, value) -> override.restoreDelayMs = value,
+                    override -> override.restoreDelayMs)
+            .add()
+            .append(new KeyedCodec<>("ParallelTick", Codec.BOOLEAN),
+                    (override, value) -> override.parallelTick = value,
+                    override -> override.parallelTick)
+            .add()
+            .build();
+
+    /**
+     * Name of the world this override applies to.
+     */
+    private String world = "";
+
+    @Nullable
+    private Boolean enabled;
+
+    @Nullable
+    private Long restoreDelayMs;
+
+    @Nullable
+    private Boolean parallelTick;
+
+    public String getWorld() {
+        return this.world;
+    }
+
+    @Nullable
+    public Boolean getEnabled() {
+        return this.enabled;
+    }
+
+    @Nullable
+    public Long getRestoreDelayMs() {
+        return this.restoreDelayMs;
+    }
+
+    @Nullable
+    public Boolean getParallelTick() {
+        return this.parallelTick;
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return "WorldOverrideConfig{" +
+                "world=" + world +
+                ", enabled=" + enabled +
+                ", restoreDelayMs=" + restoreDelayMs +
+                ", parallelTick=" + parallelTick +
+                '}';
+    }
+}
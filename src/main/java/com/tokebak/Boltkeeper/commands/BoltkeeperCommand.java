@@ -0,0 +1,17 @@
+package com.tokebak.Boltkeeper.commands;
+
+import com.hypixel.hytale.server.core.command.system.basecommands.AbstractCommandCollection;
+import com.tokebak.Boltkeeper.metrics.BoltkeeperMetrics;
+
+import javax.annotation.Nonnull;
+
+/**
+ * /boltkeeper - admin commands for the Boltkeeper mod.
+ */
+public class BoltkeeperCommand extends AbstractCommandCollection {
+    
+    public BoltkeeperCommand(@Nonnull final BoltkeeperMetrics metrics) {
+        super("boltkeeper", "Boltkeeper admin commands");
+        this.addSubCommand(new BoltkeeperStatsCommand(metrics));
+    }
+}
@@ -0,0 +1,46 @@
+package com.tokebak.Boltkeeper.commands;
+
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.basecommands.CommandBase;
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.tokebak.Boltkeeper.metrics.BoltkeeperMetrics;
+import com.tokebak.Boltkeeper.metrics.WorldMetrics;
+import com.tokebak.Boltkeeper.restore.RestoreQueue;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+
+/**
+ * /boltkeeper stats - prints Boltkeeper's runtime metrics, server-wide and per world.
+ */
+public class BoltkeeperStatsCommand extends CommandBase {
+    
+    private final BoltkeeperMetrics metrics;
+    
+    public BoltkeeperStatsCommand(@Nonnull final BoltkeeperMetrics metrics) {
+        super("stats", "Show Boltkeeper tick cost, swap, restore and inventory scan metrics");
+        this.metrics = metrics;
+    }
+    
+    @Override
+    protected void executeSync(@Nonnull final CommandContext context) {
+        context.sendMessage(Message.raw("[Boltkeeper] Metrics"));
+        for (final String line : this.metrics.describe()) {
+            context.sendMessage(Message.raw("  " + line));
+        }
+        
+        // Per-world counters are written by each world's thread; reading them here gives recent values
+        for (final Map.Entry<String, World> entry : Universe.get().getWorlds().entrySet()) {
+            final Store<EntityStore> store = entry.getValue().getEntityStore().getStore();
+            final WorldMetrics worldMetrics = (WorldMetrics) store.getResource(WorldMetrics.getResourceType());
+            final RestoreQueue queue = (RestoreQueue) store.getResource(RestoreQueue.getResourceType());
+            if (worldMetrics != null && queue != null) {
+                context.sendMessage(Message.raw("  World " + entry.getKey() + ": " + worldMetrics.describe(queue.size())));
+            }
+        }
+    }
+}
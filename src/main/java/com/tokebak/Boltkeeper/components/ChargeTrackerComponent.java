@@ -0,0 +1,223 @@
+package com.tokebak.Boltkeeper.components;
+
+import com.hypixel.hytale.component.Component;
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.server.core.modules.entitystats.EntityStatMap;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.tokebak.Boltkeeper.Boltkeeper;
+import com.tokebak.Boltkeeper.ResolvedStats;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * Per-player tracking state used by {@link com.tokebak.Boltkeeper.BoltkeeperSystem}.
+ * 
+ * Lives in the archetype chunk next to the Player component, so the tick reads and writes
+ * plain primitive fields instead of going through UUID-keyed maps.
+ */
+public class ChargeTrackerComponent implements Component<EntityStore> {
+    
+    /**
+     * The last known active hotbar slot.
+     */
+    private byte lastActiveSlot;
+    
+    /**
+     * Every tracked stat's value from the PREVIOUS tick, indexed by {@link ResolvedStats} slot.
+     * By the time polling detects a slot change, the game has already reset these stats,
+     * so we need the values from BEFORE the reset. In event mode they are read at the switch event instead.
+     */
+    private float[] previousValues;
+    
+    /**
+     * Generation of the {@link com.tokebak.Boltkeeper.ConfigSnapshot} this state was last tracked under.
+     * A reload may have disabled and re-enabled tracking in between, so a mismatch means resync first.
+     */
+    private int configGeneration;
+    
+    /**
+     * Bumped on every handled swap. A pending restore only applies if it carries the current
+     * generation, so a newer swap supersedes everything scheduled before it.
+     */
+    private int restoreGeneration;
+    
+    /**
+     * Hotbar slot the current generation's restores are for, or -1 if none are pending.
+     */
+    private byte pendingSlot = -1;
+    
+    /**
+     * Amounts the current generation's restores will set, indexed by {@link ResolvedStats} slot (0 = none).
+     */
+    private float[] pendingAmounts;
+    
+    /**
+     * Set when the player left a world with restores pending: they must be scheduled again (from the
+     * charges still saved on the weapon) in the world the player arrives in, the old world's queue
+     * entries are gone with the old entity.
+     */
+    private boolean transferred;
+    
+    @Nonnull
+    public static ComponentType<EntityStore, ChargeTrackerComponent> getComponentType() {
+        return Boltkeeper.get().getChargeTrackerComponentType();
+    }
+    
+    public ChargeTrackerComponent() {
+        this.previousValues = new float[0];
+        this.pendingAmounts = new float[0];
+    }
+    
+    public ChargeTrackerComponent(final byte lastActiveSlot, final int trackedStatCount) {
+        this.lastActiveSlot = lastActiveSlot;
+        this.previousValues = new float[trackedStatCount];
+        this.pendingAmounts = new float[trackedStatCount];
+    }
+    
+    public byte getLastActiveSlot() {
+        return this.lastActiveSlot;
+    }
+    
+    public void setLastActiveSlot(final byte lastActiveSlot) {
+        this.lastActiveSlot = lastActiveSlot;
+    }
+    
+    public int getConfigGeneration() {
+        return this.configGeneration;
+    }
+    
+    public void setConfigGeneration(final int configGeneration) {
+        this.configGeneration = configGeneration;
+    }
+    
+    // ==================== PENDING RESTORES ====================
+    
+    public int getRestoreGeneration() {
+        return this.restoreGeneration;
+    }
+    
+    /**
+     * A new swap is being handled: cancel every restore still pending and start a new generation.
+     * 
+     * A restore pending for the slot being left never reached the stat (it still reads as reset),
+     * so its amount is what that weapon really holds. Returns {@code valuesBeforeReset} with those
+     * amounts laid over it (as a copy), or the array itself if nothing was pending for that slot.
+     */
+    @Nonnull
+    public float[] supersedeRestores(final byte leavingSlot, @Nonnull final float[] valuesBeforeReset) {
+        this.restoreGeneration++;
+        float[] values = valuesBeforeReset;
+        if (this.pendingSlot == leavingSlot) {
+            for (int slot = 0; slot < this.pendingAmounts.length && slot < values.length; slot++) {
+                if (this.pendingAmounts[slot] > 0) {
+                    if (values == valuesBeforeReset) {
+                        values = valuesBeforeReset.clone();
+                    }
+                    values[slot] = this.pendingAmounts[slot];
+                }
+            }
+        }
+        this.pendingSlot = -1;
+        Arrays.fill(this.pendingAmounts, 0f);
+        return values;
+    }
+    
+    /**
+     * Record a restore scheduled in the current generation. Returns the generation to tag it with.
+     */
+    public int addPendingRestore(final byte hotbarSlot, final int statSlot, final int trackedStatCount, final float amount) {
+        if (this.pendingAmounts.length != trackedStatCount) {
+            this.pendingAmounts = new float[trackedStatCount];
+        }
+        this.pendingSlot = hotbarSlot;
+        this.pendingAmounts[statSlot] = amount;
+        return this.restoreGeneration;
+    }
+    
+    public byte getPendingSlot() {
+        return this.pendingSlot;
+    }
+    
+    /**
+     * The player is being drained from their world. Restores pending there can no longer apply,
+     * so start a new generation and remember to schedule them again on arrival.
+     */
+    public void onLeftWorld() {
+        if (this.pendingSlot < 0) {
+            return;
+        }
+        this.restoreGeneration++;
+        this.transferred = true;
+    }
+    
+    /**
+     * Whether restores came along from another world and still need scheduling here.
+     */
+    public boolean hasTransferredRestores() {
+        return this.transferred;
+    }
+    
+    /**
+     * Whether restores came along from another world and need scheduling here. Clears the flag.
+     */
+    public boolean takeTransferredRestores() {
+        final boolean result = this.transferred;
+        this.transferred = false;
+        return result;
+    }
+    
+    /**
+     * A restore of the current generation was applied (or given up on): it is no longer pending.
+     * Once none are, nothing is pending for the slot either (and nothing travels with a world change).
+     */
+    public void clearPendingRestore(final int statSlot) {
+        if (statSlot < this.pendingAmounts.length) {
+            this.pendingAmounts[statSlot] = 0f;
+        }
+        for (final float amount : this.pendingAmounts) {
+            if (amount > 0) {
+                return;
+            }
+        }
+        this.pendingSlot = -1;
+    }
+    
+    /**
+     * The previous tick's values, indexed by {@link ResolvedStats} slot. Not a copy.
+     */
+    @Nonnull
+    public float[] getPreviousValues() {
+        return this.previousValues;
+    }
+    
+    /**
+     * Record this tick's stat values for the next tick, writing only the entries that changed.
+     */
+    public void track(@Nullable final EntityStatMap statMap, @Nonnull final ResolvedStats stats) {
+        if (this.previousValues.length != stats.size()) {
+            this.previousValues = new float[stats.size()];
+        }
+        final float[] values = this.previousValues;
+        for (int slot = 0; slot < values.length; slot++) {
+            final float current = stats.read(statMap, slot);
+            if (values[slot] != current) {
+                values[slot] = current;
+            }
+        }
+    }
+    
+    @Nonnull
+    @Override
+    public Component<EntityStore> clone() {
+        final ChargeTrackerComponent copy = new ChargeTrackerComponent(this.lastActiveSlot, 0);
+        copy.previousValues = this.previousValues.clone();
+        copy.configGeneration = this.configGeneration;
+        copy.restoreGeneration = this.restoreGeneration;
+        copy.pendingSlot = this.pendingSlot;
+        copy.pendingAmounts = this.pendingAmounts.clone();
+        copy.transferred = this.transferred;
+        return copy;
+    }
+}
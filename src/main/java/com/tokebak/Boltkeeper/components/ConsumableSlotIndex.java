@@ -0,0 +1,310 @@
+package com.tokebak.Boltkeeper.components;
+
+import com.hypixel.hytale.component.Component;
+import com.hypixel.hytale.component.ComponentAccessor;
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.server.core.inventory.Inventory;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.tokebak.Boltkeeper.Boltkeeper;
+import com.tokebak.Boltkeeper.ConsumableMatcher;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * Per-player index of which inventory slots hold arrows and essence.
+ * 
+ * Each (kind, container) pair is a bitset over slot numbers, so "is there any essence" and
+ * "where is the next arrow" are a few word reads instead of a scan. Which items are of which kind
+ * comes from the {@link ConsumableMatcher}; the index rebuilds itself when the matcher is rebuilt.
+ * The index is kept current from inventory change notifications: single-slot changes update one bit,
+ * anything else marks that container dirty and it is rebuilt on its next lookup.
+ */
+public class ConsumableSlotIndex implements Component<EntityStore> {
+    
+    public static final int ARROW = 0;
+    public static final int ESSENCE = 1;
+    public static final int KIND_COUNT = 2;
+    
+    /**
+     * Containers in consume priority order: hotbar first, then storage, then backpack.
+     */
+    public static final int HOTBAR = 0;
+    public static final int STORAGE = 1;
+    public static final int BACKPACK = 2;
+    public static final int CONTAINER_COUNT = 3;
+    
+    private static final int ALL_DIRTY = (1 << CONTAINER_COUNT) - 1;
+    
+    private static final long[] EMPTY = new long[0];
+    
+    /**
+     * Slot bitsets indexed by {@code kind * CONTAINER_COUNT + container}.
+     */
+    private final long[][] slots = new long[KIND_COUNT * CONTAINER_COUNT][];
+    
+    /**
+     * Bit per container that must be rebuilt before its next lookup.
+     */
+    private int dirty = ALL_DIRTY;
+    
+    /**
+     * Capacity of each container when its bits were last built; a different capacity means rebuild.
+     */
+    private final short[] builtCapacity = new short[CONTAINER_COUNT];
+    
+    /**
+     * Bumped on every change notification, so callers can tell whether a cached lookup is still valid.
+     */
+    private int version;
+    
+    /**
+     * Per kind, the version at which a lookup across all containers last found nothing (-1 if none),
+     * so repeated failed checks against an unchanged inventory skip the lookup entirely.
+     */
+    private final int[] absentAtVersion = new int[KIND_COUNT];
+    
+    /**
+     * Decides which items are of which kind.
+     */
+    private final ConsumableMatcher matcher;
+    
+    /**
+     * {@link ConsumableMatcher} generation the slot bits were built against.
+     */
+    private int matcherGeneration;
+    
+    @Nonnull
+    public static ComponentType<EntityStore, ConsumableSlotIndex> getComponentType() {
+        return Boltkeeper.get().getConsumableSlotIndexComponentType();
+    }
+    
+    public ConsumableSlotIndex() {
+        this(Boltkeeper.get().getConsumableMatcher());
+    }
+    
+    public ConsumableSlotIndex(@Nonnull final ConsumableMatcher matcher) {
+        this.matcher = matcher;
+        for (int i = 0; i < this.slots.length; i++) {
+            this.slots[i] = EMPTY;
+        }
+        Arrays.fill(this.absentAtVersion, -1);
+    }
+    
+    /**
+     * Get a player's slot index, or a fresh one (built on first lookup) if their first tick hasn't added it yet.
+     */
+    @Nonnull
+    public static ConsumableSlotIndex getOrCreate(
+            @Nonnull final ComponentAccessor<EntityStore> accessor,
+            @Nonnull final Ref<EntityStore> ref
+    ) {
+        final ConsumableSlotIndex slotIndex = accessor.getComponent(ref, getComponentType());
+        return slotIndex != null ? slotIndex : new ConsumableSlotIndex();
+    }
+    
+    /**
+     * Get one of the indexed containers of an inventory by its index constant.
+     */
+    @Nullable
+    public static ItemContainer getContainer(@Nonnull final Inventory inventory, final int container) {
+        return switch (container) {
+            case HOTBAR -> inventory.getHotbar();
+            case STORAGE -> inventory.getStorage();
+            case BACKPACK -> inventory.getBackpack();
+            default -> null;
+        };
+    }
+    
+    /**
+     * Find which indexed container of an inventory a container instance is, or -1.
+     */
+    public static int indexOf(@Nonnull final Inventory inventory, @Nullable final ItemContainer itemContainer) {
+        if (itemContainer == null) {
+            return -1;
+        }
+        for (int container = 0; container < CONTAINER_COUNT; container++) {
+            if (getContainer(inventory, container) == itemContainer) {
+                return container;
+            }
+        }
+        return -1;
+    }
+    
+    // ==================== CHANGE NOTIFICATIONS ====================
+    
+    /**
+     * A single slot of a container changed: update just that slot's bits.
+     */
+    public void onSlotChanged(final int container, @Nonnull final ItemContainer itemContainer, final short slot) {
+        this.version++;
+        if ((this.dirty & (1 << container)) != 0) {
+            return;
+        }
+        if (slot < 0 || slot >= itemContainer.getCapacity()) {
+            this.markDirty(container);
+            return;
+        }
+        final int kinds = this.matcher.kindsOf(itemContainer.getItemStack(slot));
+        for (int kind = 0; kind < KIND_COUNT; kind++) {
+            final long[] bits = this.slots[kind * CONTAINER_COUNT + container];
+            if ((slot >>> 6) >= bits.length) {
+                // Capacity grew since the last rebuild
+                this.markDirty(container);
+                return;
+            }
+            if ((kinds & (1 << kind)) != 0) {
+                bits[slot >>> 6] |= 1L << slot;
+            } else {
+                bits[slot >>> 6] &= ~(1L << slot);
+            }
+        }
+    }
+    
+    /**
+     * A container changed in a way we can't attribute to one slot: rebuild it on next lookup.
+     */
+    public void markDirty(final int container) {
+        this.version++;
+        this.dirty |= 1 << container;
+    }
+    
+    public void markAllDirty() {
+        this.version++;
+        this.dirty = ALL_DIRTY;
+    }
+    
+    public int getVersion() {
+        return this.version;
+    }
+    
+    // ==================== LOOKUPS ====================
+    
+    /**
+     * Find the first slot at or after {@code fromSlot} in a container holding the given kind, or -1.
+     */
+    public int nextSlot(final int kind, final int container, @Nonnull final ItemContainer itemContainer, final int fromSlot) {
+        this.ensureBuilt(container, itemContainer);
+        final long[] bits = this.slots[kind * CONTAINER_COUNT + container];
+        int word = fromSlot >>> 6;
+        if (word >= bits.length) {
+            return -1;
+        }
+        long current = bits[word] & (-1L << fromSlot);
+        while (true) {
+            if (current != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(current);
+            }
+            if (++word == bits.length) {
+                return -1;
+            }
+            current = bits[word];
+        }
+    }
+    
+    /**
+     * Whether any indexed container of the inventory holds the given kind.
+     */
+    public boolean contains(final int kind, @Nonnull final Inventory inventory) {
+        return this.findFirst(kind, inventory) >= 0;
+    }
+    
+    /**
+     * Find the first slot holding the given kind in consume priority order, or -1.
+     * The result packs container and slot, see {@link #containerOf(int)} and {@link #slotOf(int)}.
+     * A miss is remembered until the next change notification.
+     */
+    public int findFirst(final int kind, @Nonnull final Inventory inventory) {
+        this.syncMatcher();
+        if (this.absentAtVersion[kind] == this.version) {
+            return -1;
+        }
+        for (int container = 0; container < CONTAINER_COUNT; container++) {
+            final ItemContainer itemContainer = getContainer(inventory, container);
+            if (itemContainer == null) {
+                continue;
+            }
+            final int slot = this.nextSlot(kind, container, itemContainer, 0);
+            if (slot >= 0) {
+                return (container << 16) | slot;
+            }
+        }
+        this.absentAtVersion[kind] = this.version;
+        return -1;
+    }
+    
+    public static int containerOf(final int location) {
+        return location >>> 16;
+    }
+    
+    public static short slotOf(final int location) {
+        return (short) (location & 0xFFFF);
+    }
+    
+    private void ensureBuilt(final int container, @Nonnull final ItemContainer itemContainer) {
+        final ConsumableMatcher matcher = this.syncMatcher();
+        final short capacity = itemContainer.getCapacity();
+        if (capacity != this.builtCapacity[container]) {
+            // The container grew or shrank without a notification we could attribute
+            this.markDirty(container);
+        }
+        if ((this.dirty & (1 << container)) == 0) {
+            return;
+        }
+        final int words = (capacity + 63) >>> 6;
+        for (int kind = 0; kind < KIND_COUNT; kind++) {
+            final int i = kind * CONTAINER_COUNT + container;
+            if (this.slots[i].length != words) {
+                this.slots[i] = words == 0 ? EMPTY : new long[words];
+            } else {
+                Arrays.fill(this.slots[i], 0L);
+            }
+        }
+        for (short slot = 0; slot < capacity; slot++) {
+            final int kinds = matcher.kindsOf(itemContainer.getItemStack(slot));
+            if (kinds == 0) {
+                continue;
+            }
+            for (int kind = 0; kind < KIND_COUNT; kind++) {
+                if ((kinds & (1 << kind)) != 0) {
+                    this.slots[kind * CONTAINER_COUNT + container][slot >>> 6] |= 1L << slot;
+                }
+            }
+        }
+        this.builtCapacity[container] = capacity;
+        this.dirty &= ~(1 << container);
+    }
+    
+    // ==================== CLASSIFICATION ====================
+    
+    /**
+     * Whether a stack is of the given consumable kind.
+     */
+    public boolean matches(@Nullable final ItemStack stack, final int kind) {
+        return this.matcher.matches(stack, kind);
+    }
+    
+    /**
+     * Get the matcher, first invalidating everything if Item assets reloaded since the bits were built.
+     */
+    @Nonnull
+    private ConsumableMatcher syncMatcher() {
+        final int generation = this.matcher.getGeneration();
+        if (this.matcherGeneration != generation) {
+            this.matcherGeneration = generation;
+            this.markAllDirty();
+        }
+        return this.matcher;
+    }
+    
+    @Nonnull
+    @Override
+    public Component<EntityStore> clone() {
+        // Slot bits are derived from the inventory, a copy simply rebuilds on first use
+        return new ConsumableSlotIndex(this.matcher);
+    }
+}
@@ -1,5 +1,7 @@
 package com.tokebak.Boltkeeper.interactions;
 
+import com.hypixel.hytale.codec.Codec;
+import com.hypixel.hytale.codec.KeyedCodec;
 import com.hypixel.hytale.codec.builder.BuilderCodec;
 import com.hypixel.hytale.component.CommandBuffer;
 import com.hypixel.hytale.component.Ref;
@@ -8,12 +10,12 @@ import com.hypixel.hytale.protocol.InteractionType;
 import com.hypixel.hytale.server.core.entity.InteractionContext;
 import com.hypixel.hytale.server.core.entity.entities.Player;
 import com.hypixel.hytale.server.core.inventory.Inventory;
-import com.hypixel.hytale.server.core.inventory.ItemStack;
-import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
 import com.hypixel.hytale.server.core.modules.interaction.interaction.CooldownHandler;
 import com.hypixel.hytale.server.core.modules.interaction.interaction.config.SimpleInstantInteraction;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import com.hypixel.hytale.protocol.WaitForDataFrom;
+import com.tokebak.Boltkeeper.Boltkeeper;
+import com.tokebak.Boltkeeper.components.ConsumableSlotIndex;
 
 import javax.annotation.Nonnull;
 
@@ -22,15 +24,28 @@ import javax.annotation.Nonnull;
  * This overrides vanilla behavior which only checks hotbar and storage.
  * 
  * Used for Fire Staff condition checks - does NOT consume, just checks availability.
+ * Passes when there are {@code Count} essences (1 by default), planned exactly like
+ * {@link BoltkeeperEssenceConsumeInteraction} plans a cast, so a check guarding a charge level's
+ * consume should carry that level's Count.
+ * Which items count as essence comes from the {@code Essences} config.
  */
 public class BoltkeeperEssenceCheckInteraction extends SimpleInstantInteraction {
     
-    private static final String FIRE_ESSENCE_ID = "Ingredient_Fire_Essence";
+    /**
+     * How many Fire Essence must be available (at least 1).
+     */
+    private int count = 1;
     
-    public static final BuilderCodec<BoltkeeperEssenceCheckInteraction> CODEC = BuilderCodec.builder(
-            BoltkeeperEssenceCheckInteraction.class,
-            BoltkeeperEssenceCheckInteraction::new,
-            SimpleInstantInteraction.CODEC
+    public static final BuilderCodec<BoltkeeperEssenceCheckInteraction> CODEC = ((BuilderCodec.Builder<BoltkeeperEssenceCheckInteraction>)
+            BuilderCodec.builder(
+                    BoltkeeperEssenceCheckInteraction.class,
+                    BoltkeeperEssenceCheckInteraction::new,
+                    SimpleInstantInteraction.CODEC
+            ).addField(
+                    new KeyedCodec<>("Count", Codec.INTEGER),
+                    (interaction, value) -> interaction.count = value,
+                    (interaction) -> interaction.count
+            )
     ).build();
     
     @Nonnull
@@ -60,33 +75,20 @@ public class BoltkeeperEssenceCheckInteraction extends SimpleInstantInteraction
             return;
         }
         
-        // Check if we have any Fire Essence across all containers (hotbar, storage, backpack)
-        // Do NOT consume - this is just a check
-        boolean hasEssence = this.hasEssenceInContainer(inventory.getHotbar())
-                || this.hasEssenceInContainer(inventory.getStorage())
-                || this.hasEssenceInContainer(inventory.getBackpack());
+        // Check if we have Count Fire Essence across all containers (hotbar, storage, backpack)
+        // Do NOT consume - this is just a check (a miss of any essence is remembered until the inventory changes)
+        final ConsumableSlotIndex slotIndex = ConsumableSlotIndex.getOrCreate(commandBuffer, ref);
+        final int location = slotIndex.findFirst(ConsumableSlotIndex.ESSENCE, inventory);
+        final EssencePlan plan = EssencePlan.get();
         
-        if (!hasEssence) {
-            // No Fire Essence anywhere - fail the interaction
+        if (location < 0 || !plan.plan(inventory, slotIndex, location, Math.max(1, this.count))) {
+            // Not enough Fire Essence - fail the interaction
+            Boltkeeper.get().getMetrics().recordFailedEssenceCheck();
             context.getState().state = InteractionState.Failed;
+            return;
         }
-        // If essence found, interaction succeeds (default state)
-    }
-    
-    /**
-     * Check if a container has any Fire Essence.
-     */
-    private boolean hasEssenceInContainer(@Nonnull final ItemContainer container) {
-        for (short slot = 0; slot < container.getCapacity(); slot++) {
-            final ItemStack item = container.getItemStack(slot);
-            if (item == null || item.isEmpty()) {
-                continue;
-            }
-            final String id = item.getItem().getId();
-            if (FIRE_ESSENCE_ID.equals(id)) {
-                return true;
-            }
-        }
-        return false;
+        
+        // If enough essence found, interaction succeeds (default state); tell the consume where it starts
+        EssenceSlotHint.record(context, plan.getFirstLocation());
     }
 }
@@ -11,12 +11,13 @@ import com.hypixel.hytale.server.core.entity.InteractionContext;
 import com.hypixel.hytale.server.core.entity.entities.Player;
 import com.hypixel.hytale.server.core.inventory.Inventory;
 import com.hypixel.hytale.server.core.inventory.ItemStack;
-import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
 import com.hypixel.hytale.server.core.inventory.transaction.ItemStackSlotTransaction;
 import com.hypixel.hytale.server.core.modules.interaction.interaction.CooldownHandler;
 import com.hypixel.hytale.server.core.modules.interaction.interaction.config.SimpleInstantInteraction;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import com.hypixel.hytale.protocol.WaitForDataFrom;
+import com.tokebak.Boltkeeper.Boltkeeper;
+import com.tokebak.Boltkeeper.components.ConsumableSlotIndex;
 
 import javax.annotation.Nonnull;
 
@@ -26,15 +27,20 @@ import javax.annotation.Nonnull;
  * 
  * Also supports durability adjustment on the held item (same as ModifyInventory).
  * 
- * Used during Fire Staff attacks to consume Fire Essence.
+ * Used during Fire Staff attacks to consume Fire Essence ({@code Count} per run, 1 by default,
+ * so each charge level's override sets its own cost). Either all of it is taken or none.
  * Priority: hotbar first, then storage, then backpack.
+ * Which items count as essence comes from the {@code Essences} config.
  */
 public class BoltkeeperEssenceConsumeInteraction extends SimpleInstantInteraction {
     
-    private static final String FIRE_ESSENCE_ID = "Ingredient_Fire_Essence";
-    
     private double adjustHeldItemDurability;
     
+    /**
+     * How many Fire Essence one run consumes (at least 1).
+     */
+    private int count = 1;
+    
     public static final BuilderCodec<BoltkeeperEssenceConsumeInteraction> CODEC = ((BuilderCodec.Builder<BoltkeeperEssenceConsumeInteraction>)
             BuilderCodec.builder(
                     BoltkeeperEssenceConsumeInteraction.class,
@@ -44,6 +50,10 @@ public class BoltkeeperEssenceConsumeInteraction extends SimpleInstantInteractio
                     new KeyedCodec<>("AdjustHeldItemDurability", Codec.DOUBLE),
                     (interaction, value) -> interaction.adjustHeldItemDurability = value,
                     (interaction) -> interaction.adjustHeldItemDurability
+            ).addField(
+                    new KeyedCodec<>("Count", Codec.INTEGER),
+                    (interaction, value) -> interaction.count = value,
+                    (interaction) -> interaction.count
             )
     ).build();
     
@@ -74,21 +84,21 @@ public class BoltkeeperEssenceConsumeInteraction extends SimpleInstantInteractio
             return;
         }
         
-        // Try to consume 1 Fire Essence from hotbar first, then storage, then backpack
-        boolean consumed = this.consumeEssenceFromContainer(inventory.getHotbar());
-        if (!consumed) {
-            consumed = this.consumeEssenceFromContainer(inventory.getStorage());
-        }
-        if (!consumed) {
-            consumed = this.consumeEssenceFromContainer(inventory.getBackpack());
-        }
+        // Plan the whole consumption before touching the inventory, so a cast either takes all
+        // Count essences or none, starting with the slot the essence check found
+        final ConsumableSlotIndex slotIndex = ConsumableSlotIndex.getOrCreate(commandBuffer, ref);
+        final EssencePlan plan = EssencePlan.get();
+        final boolean enough = plan.plan(inventory, slotIndex, EssenceSlotHint.take(context), Math.max(1, this.count));
+        Boltkeeper.get().getMetrics().recordSlotsScanned(plan.getVisited());
         
-        if (!consumed) {
-            // Couldn't consume Fire Essence
+        if (!enough) {
+            // Not enough Fire Essence for this cast
             context.getState().state = InteractionState.Failed;
             return;
         }
         
+        plan.consume(inventory, slotIndex);
+        
         // Apply durability adjustment to held item if specified
         if (this.adjustHeldItemDurability != 0.0) {
             final ItemStack heldItem = context.getHeldItem();
@@ -103,27 +113,4 @@ public class BoltkeeperEssenceConsumeInteraction extends SimpleInstantInteractio
         }
         // If consumed, interaction succeeds (default state)
     }
-    
-    /**
-     * Try to consume one Fire Essence from a container.
-     * Returns true if Fire Essence was consumed.
-     */
-    private boolean consumeEssenceFromContainer(@Nonnull final ItemContainer container) {
-        for (short slot = 0; slot < container.getCapacity(); slot++) {
-            final ItemStack item = container.getItemStack(slot);
-            if (item == null || item.isEmpty()) {
-                continue;
-            }
-            
-            final String id = item.getItem().getId();
-            if (!FIRE_ESSENCE_ID.equals(id)) {
-                continue;
-            }
-            
-            // Found Fire Essence - consume it
-            container.removeItemStackFromSlot(slot, 1);
-            return true;
-        }
-        return false;
-    }
 }
@@ -0,0 +1,145 @@
+package com.tokebak.Boltkeeper.interactions;
+
+import com.hypixel.hytale.server.core.inventory.Inventory;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
+import com.tokebak.Boltkeeper.components.ConsumableSlotIndex;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Where one cast takes its Fire Essence from: packed slot locations (see
+ * {@link ConsumableSlotIndex#findFirst}) and the amount taken from each.
+ * 
+ * Shared by {@link BoltkeeperEssenceCheckInteraction}, which only plans, and
+ * {@link BoltkeeperEssenceConsumeInteraction}, which plans and then takes what was planned,
+ * so both agree on whether {@code Count} essence is there. Buffers are reused per thread
+ * (interactions run on every world's thread) and grow to the largest count planned.
+ */
+final class EssencePlan {
+    
+    private static final ThreadLocal<EssencePlan> CURRENT = ThreadLocal.withInitial(EssencePlan::new);
+    
+    private int[] locations = new int[1];
+    
+    private int[] amounts = new int[1];
+    
+    private int size;
+    
+    private int visited;
+    
+    /**
+     * The calling thread's plan, overwritten by its next {@link #plan}.
+     */
+    @Nonnull
+    static EssencePlan get() {
+        return CURRENT.get();
+    }
+    
+    /**
+     * Pick the slots (and how much from each) that together hold {@code count} Fire Essence: the
+     * hinted location first (it is still right unless the inventory changed since it was found),
+     * then hotbar, storage and backpack in index order. Returns whether the inventory holds enough;
+     * the plan is only complete if it does. Nothing is taken.
+     */
+    boolean plan(
+            @Nonnull final Inventory inventory,
+            @Nonnull final ConsumableSlotIndex slotIndex,
+            final int hint,
+            final int count
+    ) {
+        if (this.locations.length < count) {
+            this.locations = new int[count];
+            this.amounts = new int[count];
+        }
+        int remaining = count;
+        int used = 0;
+        int visited = hint >= 0 ? 1 : 0;
+        
+        final int hintQuantity = essenceAt(inventory, slotIndex, hint);
+        if (hintQuantity > 0) {
+            this.locations[0] = hint;
+            this.amounts[0] = Math.min(remaining, hintQuantity);
+            remaining -= this.amounts[0];
+            used = 1;
+        }
+        
+        for (int container = 0; container < ConsumableSlotIndex.CONTAINER_COUNT && remaining > 0; container++) {
+            final ItemContainer itemContainer = ConsumableSlotIndex.getContainer(inventory, container);
+            if (itemContainer == null) {
+                continue;
+            }
+            int slot = slotIndex.nextSlot(ConsumableSlotIndex.ESSENCE, container, itemContainer, 0);
+            while (slot >= 0 && remaining > 0) {
+                final int location = (container << 16) | slot;
+                if (location != hint || hintQuantity <= 0) {
+                    // The index is only a hint: plan nothing the matcher doesn't call essence
+                    final int quantity = essenceAt(inventory, slotIndex, location);
+                    visited++;
+                    if (quantity > 0) {
+                        this.locations[used] = location;
+                        this.amounts[used] = Math.min(remaining, quantity);
+                        remaining -= this.amounts[used];
+                        used++;
+                    } else {
+                        // Stale bit: re-read the slot so the index stops pointing at it
+                        slotIndex.onSlotChanged(container, itemContainer, (short) slot);
+                    }
+                }
+                slot = slotIndex.nextSlot(ConsumableSlotIndex.ESSENCE, container, itemContainer, slot + 1);
+            }
+        }
+        
+        this.size = used;
+        this.visited = visited;
+        return remaining <= 0;
+    }
+    
+    /**
+     * Take everything the last successful {@link #plan} picked, keeping the slot index current.
+     */
+    void consume(@Nonnull final Inventory inventory, @Nonnull final ConsumableSlotIndex slotIndex) {
+        for (int i = 0; i < this.size; i++) {
+            final int container = ConsumableSlotIndex.containerOf(this.locations[i]);
+            final short slot = ConsumableSlotIndex.slotOf(this.locations[i]);
+            final ItemContainer itemContainer = ConsumableSlotIndex.getContainer(inventory, container);
+            itemContainer.removeItemStackFromSlot(slot, this.amounts[i]);
+            slotIndex.onSlotChanged(container, itemContainer, slot);
+        }
+    }
+    
+    /**
+     * Packed location of the first slot the last plan takes from.
+     */
+    int getFirstLocation() {
+        return this.size > 0 ? this.locations[0] : -1;
+    }
+    
+    /**
+     * How many slots the last plan read. The hint and the index go straight to essence slots,
+     * so stale bits are the only wasted reads.
+     */
+    int getVisited() {
+        return this.visited;
+    }
+    
+    /**
+     * How much Fire Essence the slot at a packed location holds (0 for no location or another item).
+     */
+    private static int essenceAt(
+            @Nonnull final Inventory inventory,
+            @Nonnull final ConsumableSlotIndex slotIndex,
+            final int location
+    ) {
+        if (location < 0) {
+            return 0;
+        }
+        final short slot = ConsumableSlotIndex.slotOf(location);
+        final ItemContainer itemContainer = ConsumableSlotIndex.getContainer(inventory, ConsumableSlotIndex.containerOf(location));
+        if (itemContainer == null || slot >= itemContainer.getCapacity()) {
+            return 0;
+        }
+        final ItemStack stack = itemContainer.getItemStack(slot);
+        return slotIndex.matches(stack, ConsumableSlotIndex.ESSENCE) ? stack.getQuantity() : 0;
+    }
+}
@@ -0,0 +1,49 @@
+package com.tokebak.Boltkeeper.interactions;
+
+import com.hypixel.hytale.server.core.entity.InteractionContext;
+import com.hypixel.hytale.server.core.meta.MetaKey;
+import com.hypixel.hytale.server.core.modules.interaction.interaction.config.Interaction;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Where {@link BoltkeeperEssenceCheckInteraction} found Fire Essence, carried on the interaction
+ * context so {@link BoltkeeperEssenceConsumeInteraction} later in the same chain can go straight
+ * to that slot instead of looking it up again.
+ *
+ * The hint is only a guess: the consume re-reads the slot and falls back to a lookup if it changed.
+ */
+final class EssenceSlotHint {
+
+    private static final MetaKey<EssenceSlotHint> KEY = Interaction.CONTEXT_META_REGISTRY.registerMetaObject(context -> null);
+
+    /**
+     * Packed container and slot, see {@link com.tokebak.Boltkeeper.components.ConsumableSlotIndex#findFirst}.
+     */
+    private int location;
+
+    private EssenceSlotHint() {
+    }
+
+    static void record(@Nonnull final InteractionContext context, final int location) {
+        EssenceSlotHint hint = context.getMetaStore().getMetaObject(KEY);
+        if (hint == null) {
+            hint = new EssenceSlotHint();
+            context.getMetaStore().putMetaObject(KEY, hint);
+        }
+        hint.location = location;
+    }
+
+    /**
+     * Take the recorded location (the hint is used up), or -1 if the check didn't record one.
+     */
+    static int take(@Nonnull final InteractionContext context) {
+        final EssenceSlotHint hint = context.getMetaStore().getMetaObject(KEY);
+        if (hint == null) {
+            return -1;
+        }
+        final int location = hint.location;
+        hint.location = -1;
+        return location;
+    }
+}
@@ -0,0 +1,392 @@
+package com.tokebak.Boltkeeper.logging;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Debug log that costs a single volatile read when disabled.
+ *
+ * Events are a constant template with {@code {}} placeholders plus up to four arguments. Primitive
+ * arguments are stored raw and object arguments by reference into a preallocated ring buffer, so
+ * logging from a world thread never formats or boxes anything. A daemon writer thread formats the
+ * events and appends them to a file. When the writer falls a full buffer behind, new events are
+ * dropped (and counted) instead of blocking the tick.
+ *
+ * Call sites should still guard with {@link #isEnabled()} when computing an argument has a cost.
+ */
+public class DebugLog {
+
+    private static final String PREFIX = "[BOLTKEEPER:DEBUG] ";
+
+    private static final int MAX_ARGS = 4;
+
+    private static final byte KIND_NONE = 0;
+    private static final byte KIND_LONG = 1;
+    private static final byte KIND_DOUBLE = 2;
+    private static final byte KIND_OBJECT = 3;
+
+    private static final long IDLE_PARK_NANOS = 10_000_000L;
+
+    /**
+     * One preallocated ring buffer entry. {@code sequence} is written last and marks the entry as published.
+     */
+    private static final class Event {
+        private volatile long sequence = -1L;
+        private long pending;
+        private long timeMillis;
+        private String template;
+        private final byte[] kinds = new byte[MAX_ARGS];
+        private final long[] primitives = new long[MAX_ARGS];
+        private final Object[] objects = new Object[MAX_ARGS];
+    }
+
+    private final Path file;
+
+    private final Event[] ring;
+
+    private final int mask;
+
+    /** Next sequence to claim (producers). */
+    private final AtomicLong claimed = new AtomicLong();
+
+    /** Next sequence to write out (writer thread). */
+    private volatile long consumed;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile boolean enabled;
+
+    private volatile boolean running;
+
+    @Nullable
+    private Thread writer;
+
+    /**
+     * @param file     file the writer thread appends to
+     * @param capacity ring buffer size, rounded up to a power of two
+     */
+    public DebugLog(@Nonnull final Path file, final int capacity) {
+        final int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.file = file;
+        this.ring = new Event[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            this.ring[i] = new Event();
+        }
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Turn logging on or off. The writer thread is started on first enable and kept until {@link #shutdown()}.
+     */
+    public synchronized void setEnabled(final boolean enabled) {
+        if (enabled && this.writer == null) {
+            this.running = true;
+            this.writer = new Thread(this::runWriter, "Boltkeeper-DebugLog");
+            this.writer.setDaemon(true);
+            this.writer.start();
+        }
+        this.enabled = enabled;
+    }
+
+    public long getDroppedCount() {
+        return this.dropped.get();
+    }
+
+    // ==================== LOGGING ====================
+
+    public void log(@Nonnull final String template) {
+        if (!this.enabled) {
+            return;
+        }
+        final Event event = this.claim();
+        if (event != null) {
+            this.publish(event, template, 0);
+        }
+    }
+
+    public void log(@Nonnull final String template, final long a) {
+        if (!this.enabled) {
+            return;
+        }
+        final Event event = this.claim();
+        if (event != null) {
+            setLong(event, 0, a);
+            this.publish(event, template, 1);
+        }
+    }
+
+    public void log(@Nonnull final String template, final long a, final long b) {
+        if (!this.enabled) {
+            return;
+        }
+        final Event event = this.claim();
+        if (event != null) {
+            setLong(event, 0, a);
+            setLong(event, 1, b);
+            this.publish(event, template, 2);
+        }
+    }
+
+    public void log(@Nonnull final String template, @Nullable final Object a) {
+        if (!this.enabled) {
+            return;
+        }
+        final Event event = this.claim();
+        if (event != null) {
+            setObject(event, 0, a);
+            this.publish(event, template, 1);
+        }
+    }
+
+    public void log(@Nonnull final String template, @Nullable final Object a, final long b) {
+        if (!this.enabled) {
+            return;
+        }
+        final Event event = this.claim();
+        if (event != null) {
+            setObject(event, 0, a);
+            setLong(event, 1, b);
+            this.publish(event, template, 2);
+        }
+    }
+
+    public void log(@Nonnull final String template, @Nullable final Object a, final double b, final double c) {
+        if (!this.enabled) {
+            return;
+        }
+        final Event event = this.claim();
+        if (event != null) {
+            setObject(event, 0, a);
+            setDouble(event, 1, b);
+            setDouble(event, 2, c);
+            this.publish(event, template, 3);
+        }
+    }
+
+    public void log(@Nonnull final String template, final double a, @Nullable final Object b, final long c) {
+        if (!this.enabled) {
+            return;
+        }
+        final Event event = this.claim();
+        if (event != null) {
+            setDouble(event, 0, a);
+            setObject(event, 1, b);
+            setLong(event, 2, c);
+            this.publish(event, template, 3);
+        }
+    }
+
+    public void log(
+            @Nonnull final String template,
+            @Nullable final Object a,
+            final double b,
+            @Nullable final Object c,
+            final long d
+    ) {
+        if (!this.enabled) {
+            return;
+        }
+        final Event event = this.claim();
+        if (event != null) {
+            setObject(event, 0, a);
+            setDouble(event, 1, b);
+            setObject(event, 2, c);
+            setLong(event, 3, d);
+            this.publish(event, template, 4);
+        }
+    }
+
+    public void log(
+            @Nonnull final String template,
+            @Nullable final Object a,
+            @Nullable final Object b,
+            @Nullable final Object c,
+            @Nullable final Object d
+    ) {
+        if (!this.enabled) {
+            return;
+        }
+        final Event event = this.claim();
+        if (event != null) {
+            setObject(event, 0, a);
+            setObject(event, 1, b);
+            setObject(event, 2, c);
+            setObject(event, 3, d);
+            this.publish(event, template, 4);
+        }
+    }
+
+    /**
+     * Claim the next ring buffer entry, or return null (and count a drop) when the writer is a full buffer behind.
+     */
+    @Nullable
+    private Event claim() {
+        while (true) {
+            final long sequence = this.claimed.get();
+            if (sequence - this.consumed >= this.ring.length) {
+                this.dropped.incrementAndGet();
+                return null;
+            }
+            if (this.claimed.compareAndSet(sequence, sequence + 1)) {
+                final Event event = this.ring[(int) (sequence & this.mask)];
+                event.pending = sequence;
+                return event;
+            }
+        }
+    }
+
+    private void publish(@Nonnull final Event event, @Nonnull final String template, final int argCount) {
+        event.timeMillis = System.currentTimeMillis();
+        event.template = template;
+        for (int i = argCount; i < MAX_ARGS; i++) {
+            event.kinds[i] = KIND_NONE;
+            event.objects[i] = null;
+        }
+        event.sequence = event.pending;
+    }
+
+    // ==================== WRITER THREAD ====================
+
+    /**
+     * Stop the writer thread after it has written out everything already published.
+     */
+    public void shutdown() {
+        final Thread thread;
+        synchronized (this) {
+            this.enabled = false;
+            this.running = false;
+            thread = this.writer;
+            this.writer = null;
+        }
+        if (thread == null) {
+            return;
+        }
+        LockSupport.unpark(thread);
+        try {
+            thread.join(1000L);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runWriter() {
+        final StringBuilder line = new StringBuilder(256);
+        try {
+            final Path parent = this.file.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+        } catch (final IOException e) {
+            System.out.println("[BOLTKEEPER] Failed to create debug log directory: " + e.getMessage());
+        }
+        try (BufferedWriter out = Files.newBufferedWriter(
+                this.file,
+                StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND
+        )) {
+            long reportedDrops = 0L;
+            while (true) {
+                final boolean keepRunning = this.running;
+                int written = 0;
+                long next = this.consumed;
+                Event event = this.ring[(int) (next & this.mask)];
+                while (event.sequence == next) {
+                    line.setLength(0);
+                    format(event, line);
+                    out.write(line.toString());
+                    out.newLine();
+                    event.template = null;
+                    for (int i = 0; i < MAX_ARGS; i++) {
+                        event.objects[i] = null;
+                    }
+                    next++;
+                    this.consumed = next;
+                    written++;
+                    event = this.ring[(int) (next & this.mask)];
+                }
+                final long drops = this.dropped.get();
+                if (drops != reportedDrops) {
+                    out.write(PREFIX + "dropped " + (drops - reportedDrops) + " events (writer fell behind)");
+                    out.newLine();
+                    reportedDrops = drops;
+                    written++;
+                }
+                if (written > 0) {
+                    out.flush();
+                } else if (!keepRunning) {
+                    return;
+                } else {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+        } catch (final IOException e) {
+            System.out.println("[BOLTKEEPER] Debug log writer stopped: " + e.getMessage());
+        }
+    }
+
+    private static void format(@Nonnull final Event event, @Nonnull final StringBuilder line) {
+        line.append(Instant.ofEpochMilli(event.timeMillis)).append(' ').append(PREFIX);
+        final String template = event.template;
+        int arg = 0;
+        int from = 0;
+        int at;
+        while ((at = template.indexOf("{}", from)) >= 0) {
+            line.append(template, from, at);
+            if (arg < MAX_ARGS && event.kinds[arg] != KIND_NONE) {
+                appendArg(event, arg, line);
+            } else {
+                line.append("{}");
+            }
+            arg++;
+            from = at + 2;
+        }
+        line.append(template, from, template.length());
+    }
+
+    private static void appendArg(@Nonnull final Event event, final int i, @Nonnull final StringBuilder line) {
+        switch (event.kinds[i]) {
+            case KIND_LONG -> line.append(event.primitives[i]);
+            case KIND_DOUBLE -> {
+                final double value = Double.longBitsToDouble(event.primitives[i]);
+                // Stat values are whole numbers almost always, print them without a trailing ".0"
+                if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+                    line.append((long) value);
+                } else {
+                    line.append(value);
+                }
+            }
+            default -> line.append(event.objects[i]);
+        }
+    }
+
+    private static void setLong(@Nonnull final Event event, final int i, final long value) {
+        event.kinds[i] = KIND_LONG;
+        event.primitives[i] = value;
+        event.objects[i] = null;
+    }
+
+    private static void setDouble(@Nonnull final Event event, final int i, final double value) {
+        event.kinds[i] = KIND_DOUBLE;
+        event.primitives[i] = Double.doubleToRawLongBits(value);
+        event.objects[i] = null;
+    }
+
+    private static void setObject(@Nonnull final Event event, final int i, @Nullable final Object value) {
+        event.kinds[i] = KIND_OBJECT;
+        event.objects[i] = value;
+    }
+}
@@ -0,0 +1,244 @@
+package com.tokebak.Boltkeeper.metrics;
+
+import javax.annotation.Nonnull;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Boltkeeper's runtime metrics: tick cost, swaps, saves/restores per weapon profile,
+ * restore delay, inventory slots scanned per consume, failed essence checks and pending restore state.
+ * 
+ * Everything is a {@link LongAdder} or {@link LatencyHistogram}, so recording never locks or
+ * allocates and can stay on in production. Read through the /boltkeeper stats command or JMX.
+ * 
+ * The pending restore count is not recorded at all: it is read from the live worlds' restore
+ * queues, so restores lost with an unloaded world can't leave it drifting.
+ */
+public class BoltkeeperMetrics implements BoltkeeperMetricsMXBean {
+    
+    /**
+     * Length of the window {@link #getSwapsPerSecond()} averages over.
+     */
+    private static final long RATE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(60);
+    
+    /**
+     * Start (time and swap count) of the previous and current rate windows, guarded by {@code this}.
+     */
+    private long previousWindowNanos = System.nanoTime();
+    private long previousWindowSwaps;
+    private long currentWindowNanos = this.previousWindowNanos;
+    private long currentWindowSwaps;
+    
+    /**
+     * Weapon profile ids, indexed like {@link com.tokebak.Boltkeeper.WeaponProfile#getIndex()}.
+     */
+    private final String[] profileIds;
+    
+    private final LatencyHistogram tickNanos = new LatencyHistogram();
+    
+    private final LongAdder swaps = new LongAdder();
+    
+    private final LongAdder[] saves;
+    
+    private final LongAdder[] restores;
+    
+    private final LatencyHistogram restoreDelayNanos = new LatencyHistogram();
+    
+    private final LatencyHistogram slotsScanned = new LatencyHistogram();
+    
+    private final LongAdder failedEssenceChecks = new LongAdder();
+    
+    /**
+     * Counts the restores waiting in every loaded world's queue.
+     */
+    private volatile LongSupplier pendingRestores = () -> 0L;
+    
+    private final LongAdder droppedRestores = new LongAdder();
+    
+    private final LongAdder supersededRestores = new LongAdder();
+    
+    public BoltkeeperMetrics(@Nonnull final String[] profileIds) {
+        this.profileIds = profileIds;
+        this.saves = new LongAdder[profileIds.length];
+        this.restores = new LongAdder[profileIds.length];
+        for (int i = 0; i < profileIds.length; i++) {
+            this.saves[i] = new LongAdder();
+            this.restores[i] = new LongAdder();
+        }
+    }
+    
+    // ==================== RECORDING ====================
+    
+    public void recordTick(final long nanos) {
+        this.tickNanos.record(nanos);
+    }
+    
+    public void recordSwap() {
+        this.swaps.increment();
+    }
+    
+    public void recordSave(final int profileIndex) {
+        this.saves[profileIndex].increment();
+    }
+    
+    public void recordRestore(final int profileIndex, final long scheduledAtNanos) {
+        this.restores[profileIndex].increment();
+        this.restoreDelayNanos.record(System.nanoTime() - scheduledAtNanos);
+    }
+    
+    public void recordSlotsScanned(final int slots) {
+        this.slotsScanned.record(slots);
+    }
+    
+    public void recordFailedEssenceCheck() {
+        this.failedEssenceChecks.increment();
+    }
+    
+    /**
+     * A due restore was skipped because a later swap of the same player superseded it.
+     */
+    public void recordRestoreSuperseded() {
+        this.supersededRestores.increment();
+    }
+    
+    /**
+     * Restores were dropped from a queue before becoming due (player gone).
+     */
+    public void recordRestoresDropped(final int count) {
+        this.droppedRestores.add(count);
+    }
+    
+    /**
+     * Set where {@link #getPendingRestores()} reads its count from.
+     */
+    public void setPendingRestoresSource(@Nonnull final LongSupplier source) {
+        this.pendingRestores = source;
+    }
+    
+    // ==================== READING ====================
+    
+    @Override
+    public long getTickCount() {
+        return this.tickNanos.getCount();
+    }
+    
+    @Override
+    public long getTickMeanMicros() {
+        return (long) (this.tickNanos.getMean() / 1000.0);
+    }
+    
+    @Override
+    public long getTickP99Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(this.tickNanos.getPercentile(0.99));
+    }
+    
+    @Override
+    public long getTickMaxMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(this.tickNanos.getMax());
+    }
+    
+    @Override
+    public long getSwaps() {
+        return this.swaps.sum();
+    }
+    
+    /**
+     * Recent swap rate, averaged over the last one to two minutes (from the start of the previous window).
+     */
+    @Override
+    public synchronized double getSwapsPerSecond() {
+        final long now = System.nanoTime();
+        final long swaps = this.swaps.sum();
+        if (now - this.currentWindowNanos >= RATE_WINDOW_NANOS) {
+            this.previousWindowNanos = this.currentWindowNanos;
+            this.previousWindowSwaps = this.currentWindowSwaps;
+            this.currentWindowNanos = now;
+            this.currentWindowSwaps = swaps;
+        }
+        final double seconds = (now - this.previousWindowNanos) / 1_000_000_000.0;
+        return seconds > 0 ? (swaps - this.previousWindowSwaps) / seconds : 0.0;
+    }
+    
+    @Override
+    public Map<String, Long> getSavesByProfile() {
+        return this.byProfile(this.saves);
+    }
+    
+    @Override
+    public Map<String, Long> getRestoresByProfile() {
+        return this.byProfile(this.restores);
+    }
+    
+    @Override
+    public long getRestoreDelayP50Millis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.restoreDelayNanos.getPercentile(0.50));
+    }
+    
+    @Override
+    public long getRestoreDelayP99Millis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.restoreDelayNanos.getPercentile(0.99));
+    }
+    
+    @Override
+    public double getSlotsScannedPerConsumeMean() {
+        return this.slotsScanned.getMean();
+    }
+    
+    @Override
+    public long getSlotsScannedPerConsumeMax() {
+        return this.slotsScanned.getMax();
+    }
+    
+    @Override
+    public long getFailedEssenceChecks() {
+        return this.failedEssenceChecks.sum();
+    }
+    
+    @Override
+    public long getPendingRestores() {
+        return this.pendingRestores.getAsLong();
+    }
+    
+    @Override
+    public long getDroppedRestores() {
+        return this.droppedRestores.sum();
+    }
+    
+    @Override
+    public long getSupersededRestores() {
+        return this.supersededRestores.sum();
+    }
+    
+    @Nonnull
+    private Map<String, Long> byProfile(@Nonnull final LongAdder[] counters) {
+        final Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < this.profileIds.length; i++) {
+            result.put(this.profileIds[i], counters[i].sum());
+        }
+        return result;
+    }
+    
+    /**
+     * Human-readable summary, one metric per line.
+     */
+    @Nonnull
+    public String[] describe() {
+        return new String[]{
+                String.format("Tick: %d ticks, mean %dus, p99 %dus, max %dus",
+                        this.getTickCount(), this.getTickMeanMicros(), this.getTickP99Micros(), this.getTickMaxMicros()),
+                String.format("Swaps: %d (%.2f/s recently)", this.getSwaps(), this.getSwapsPerSecond()),
+                "Saves: " + this.getSavesByProfile(),
+                "Restores: " + this.getRestoresByProfile(),
+                String.format("Restore delay: p50 %dms, p99 %dms",
+                        this.getRestoreDelayP50Millis(), this.getRestoreDelayP99Millis()),
+                String.format("Slots scanned per consume: mean %.1f, max %d",
+                        this.getSlotsScannedPerConsumeMean(), this.getSlotsScannedPerConsumeMax()),
+                "Failed essence checks: " + this.getFailedEssenceChecks(),
+                "Pending restores: " + this.getPendingRestores() + " (dropped for departed players: " + this.getDroppedRestores()
+                        + ", superseded by a later swap: " + this.getSupersededRestores() + ")"
+        };
+    }
+}
@@ -0,0 +1,41 @@
+package com.tokebak.Boltkeeper.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link BoltkeeperMetrics}, registered as {@code com.tokebak.Boltkeeper:type=Metrics}.
+ */
+public interface BoltkeeperMetricsMXBean {
+    
+    long getTickCount();
+    
+    long getTickMeanMicros();
+    
+    long getTickP99Micros();
+    
+    long getTickMaxMicros();
+    
+    long getSwaps();
+    
+    double getSwapsPerSecond();
+    
+    Map<String, Long> getSavesByProfile();
+    
+    Map<String, Long> getRestoresByProfile();
+    
+    long getRestoreDelayP50Millis();
+    
+    long getRestoreDelayP99Millis();
+    
+    double getSlotsScannedPerConsumeMean();
+    
+    long getSlotsScannedPerConsumeMax();
+    
+    long getFailedEssenceChecks();
+    
+    long getPendingRestores();
+    
+    long getDroppedRestores();
+    
+    long getSupersededRestores();
+}
@@ -0,0 +1,73 @@
+package com.tokebak.Boltkeeper.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram with power-of-two buckets.
+ * 
+ * Recording is one {@link LongAdder} increment per bucket plus a running sum and max, so it is cheap
+ * enough to leave on from world threads. Percentiles are approximate: they report the upper bound of
+ * the bucket the percentile falls into.
+ */
+public class LatencyHistogram {
+    
+    private static final int BUCKETS = 64;
+    
+    /**
+     * Bucket {@code i} counts values in {@code [2^(i-1), 2^i)}; bucket 0 counts zeros.
+     */
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    
+    private final LongAdder count = new LongAdder();
+    
+    private final LongAdder sum = new LongAdder();
+    
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+    
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            this.buckets[i] = new LongAdder();
+        }
+    }
+    
+    public void record(final long value) {
+        final long clamped = Math.max(0L, value);
+        this.buckets[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(clamped))].increment();
+        this.count.increment();
+        this.sum.add(clamped);
+        this.max.accumulate(clamped);
+    }
+    
+    public long getCount() {
+        return this.count.sum();
+    }
+    
+    public long getMax() {
+        return this.max.get();
+    }
+    
+    public double getMean() {
+        final long n = this.count.sum();
+        return n == 0 ? 0.0 : (double) this.sum.sum() / n;
+    }
+    
+    /**
+     * Approximate value at the given percentile (0..1), as the upper bound of its bucket.
+     */
+    public long getPercentile(final double percentile) {
+        final long n = this.count.sum();
+        if (n == 0) {
+            return 0L;
+        }
+        final long target = (long) Math.ceil(percentile * n);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += this.buckets[i].sum();
+            if (seen >= target) {
+                return i == 0 ? 0L : Math.min((1L << i) - 1, this.getMax());
+            }
+        }
+        return this.getMax();
+    }
+}
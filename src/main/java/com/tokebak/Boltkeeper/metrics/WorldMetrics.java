@@ -0,0 +1,81 @@
+package com.tokebak.Boltkeeper.metrics;
+
+import com.hypixel.hytale.component.Resource;
+import com.hypixel.hytale.component.ResourceType;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.tokebak.Boltkeeper.Boltkeeper;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Per-world Boltkeeper counters, owned by the world's EntityStore.
+ * 
+ * Only the world thread writes them (swaps and restores are handled serially on it), so they are
+ * plain single-writer fields with no shared cache lines between worlds. Volatile so the stats
+ * command can read a recent value from another thread. The server-wide histograms and totals stay
+ * in {@link BoltkeeperMetrics}.
+ */
+public class WorldMetrics implements Resource<EntityStore> {
+    
+    private volatile long swaps;
+    
+    private volatile long restores;
+    
+    private volatile long supersededRestores;
+    
+    private volatile long droppedRestores;
+    
+    private volatile long transfersIn;
+    
+    @Nonnull
+    public static ResourceType<EntityStore, WorldMetrics> getResourceType() {
+        return Boltkeeper.get().getWorldMetricsResourceType();
+    }
+    
+    // ==================== RECORDING (world thread only) ====================
+    
+    public void recordSwap() {
+        this.swaps++;
+    }
+    
+    public void recordRestore() {
+        this.restores++;
+    }
+    
+    public void recordRestoreSuperseded() {
+        this.supersededRestores++;
+    }
+    
+    public void recordRestoresDropped(final int count) {
+        this.droppedRestores += count;
+    }
+    
+    /**
+     * A player arrived from another world with restores still pending, which were moved here.
+     */
+    public void recordTransferIn() {
+        this.transfersIn++;
+    }
+    
+    // ==================== READING ====================
+    
+    /**
+     * One-line summary; {@code pendingRestores} is the world's current restore queue size.
+     */
+    @Nonnull
+    public String describe(final int pendingRestores) {
+        return "swaps " + this.swaps
+                + ", restores " + this.restores
+                + ", superseded " + this.supersededRestores
+                + ", dropped " + this.droppedRestores
+                + ", transfers in " + this.transfersIn
+                + ", pending " + pendingRestores;
+    }
+    
+    @Nonnull
+    @Override
+    public Resource<EntityStore> clone() {
+        // Counters describe the live world, a copied store starts from zero
+        return new WorldMetrics();
+    }
+}
@@ -0,0 +1,137 @@
+package com.tokebak.Boltkeeper.restore;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.tokebak.Boltkeeper.WeaponProfile;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A stat restore waiting in a world's {@link RestoreQueue}.
+ */
+public class PendingRestore {
+    
+    private final Ref<EntityStore> entityRef;
+    
+    private final WeaponProfile profile;
+    
+    private final int statSlot;
+    
+    private final float amount;
+    
+    private final byte hotbarSlot;
+    
+    private final boolean arrowBacked;
+    
+    /**
+     * The player's restore generation when this was scheduled, see
+     * {@link com.tokebak.Boltkeeper.components.ChargeTrackerComponent#getRestoreGeneration()}.
+     */
+    private final int generation;
+    
+    private final long scheduledAtNanos = System.nanoTime();
+    
+    /**
+     * Full wheel revolutions left before this restore is due.
+     */
+    int rounds;
+    
+    /**
+     * Whether this is an adaptive restore, watched for its stat reset as well as waiting in the wheel.
+     */
+    boolean watched;
+    
+    /**
+     * Set once an adaptive restore has been handed out as due. It can become due early,
+     * its timeout entry is then left in the wheel and dropped when reached.
+     */
+    boolean settled;
+    
+    /**
+     * Reset watch state of an adaptive restore, see {@link RestoreQueue#promoteReset}: checks made so far,
+     * consecutive checks that found the stat at its minimum, and whether it was ever seen above it.
+     */
+    int resetChecks;
+    
+    int ticksAtMin;
+    
+    boolean seenAboveMin;
+    
+    public PendingRestore(
+            @Nonnull final Ref<EntityStore> entityRef,
+            @Nonnull final WeaponProfile profile,
+            final int statSlot,
+            final float amount,
+            final byte hotbarSlot,
+            final boolean arrowBacked,
+            final int generation
+    ) {
+        this.entityRef = entityRef;
+        this.profile = profile;
+        this.statSlot = statSlot;
+        this.amount = amount;
+        this.hotbarSlot = hotbarSlot;
+        this.arrowBacked = arrowBacked;
+        this.generation = generation;
+    }
+    
+    @Nonnull
+    public Ref<EntityStore> getEntityRef() {
+        return this.entityRef;
+    }
+    
+    /**
+     * The weapon profile of the weapon being restored.
+     */
+    @Nonnull
+    public WeaponProfile getProfile() {
+        return this.profile;
+    }
+    
+    /**
+     * The {@link com.tokebak.Boltkeeper.ResolvedStats} slot to restore.
+     */
+    public int getStatSlot() {
+        return this.statSlot;
+    }
+    
+    public float getAmount() {
+        return this.amount;
+    }
+    
+    /**
+     * The hotbar slot the weapon was in when the restore was scheduled.
+     */
+    public byte getHotbarSlot() {
+        return this.hotbarSlot;
+    }
+    
+    /**
+     * Whether applying this restore consumes arrows from the inventory (crossbow ammo).
+     */
+    public boolean isArrowBacked() {
+        return this.arrowBacked;
+    }
+    
+    public int getGeneration() {
+        return this.generation;
+    }
+    
+    /**
+     * Whether this restore and {@code other} were scheduled by the same swap: same player, hotbar slot,
+     * weapon profile and restore generation.
+     */
+    public boolean isSameSwap(@Nonnull final PendingRestore other) {
+        return this.generation == other.generation
+                && this.hotbarSlot == other.hotbarSlot
+                && this.profile == other.profile
+                && this.entityRef.equals(other.entityRef);
+    }
+    
+    /**
+     * {@link System#nanoTime()} when the restore was scheduled.
+     */
+    public long getScheduledAtNanos() {
+        return this.scheduledAtNanos;
+    }
+}
@@ -0,0 +1,265 @@
+package com.tokebak.Boltkeeper.restore;
+
+import com.hypixel.hytale.component.Resource;
+import com.hypixel.hytale.component.ResourceType;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.tokebak.Boltkeeper.Boltkeeper;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Per-world delay queue for stat restores, implemented as a tick-based timing wheel.
+ * 
+ * Owned by the world's EntityStore and only touched from the world thread: restores are
+ * scheduled during the tick that detects the swap and drained in one batch by
+ * {@link com.tokebak.Boltkeeper.BoltkeeperRestoreSystem} on the tick they become due.
+ * 
+ * Adaptive restores are also watched every tick until their stat's reset is confirmed, and then
+ * become due on the next tick; their delay only serves as a timeout.
+ */
+public class RestoreQueue implements Resource<EntityStore> {
+    
+    /**
+     * Number of wheel buckets (must be a power of two). Delays longer than this many ticks
+     * wrap around and wait out extra revolutions.
+     */
+    private static final int WHEEL_SIZE = 64;
+    
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    
+    /**
+     * Tick length assumed until the first tick reports a real one (30 TPS).
+     */
+    private static final float DEFAULT_TICK_MILLIS = 1000f / 30f;
+    
+    /**
+     * Consecutive checks at the minimum that confirm a reset when the stat was never seen above it
+     * (swapping from an item that leaves the stat at 0 hides the reset itself).
+     */
+    private static final int RESET_CONFIRM_CHECKS = 2;
+    
+    private final List<PendingRestore>[] buckets;
+    
+    /**
+     * Restores that became due on the last {@link #advance(float)}; reused between ticks.
+     */
+    private final List<PendingRestore> due = new ArrayList<>();
+    
+    /**
+     * Adaptive restores still waiting for their stat to be seen reset.
+     */
+    private final List<PendingRestore> watching = new ArrayList<>();
+    
+    /**
+     * Adaptive restores whose reset was seen, due on the next {@link #advance(float)}.
+     */
+    private final List<PendingRestore> ready = new ArrayList<>();
+    
+    private long currentTick;
+    
+    private float tickMillis = DEFAULT_TICK_MILLIS;
+    
+    private int size;
+    
+    @Nonnull
+    public static ResourceType<EntityStore, RestoreQueue> getResourceType() {
+        return Boltkeeper.get().getRestoreQueueResourceType();
+    }
+    
+    @SuppressWarnings("unchecked")
+    public RestoreQueue() {
+        this.buckets = new List[WHEEL_SIZE];
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            this.buckets[i] = new ArrayList<>();
+        }
+    }
+    
+    /**
+     * Schedule a restore to run after {@code delayMs}, converted to whole ticks (at least one).
+     */
+    public void schedule(@Nonnull final PendingRestore restore, final long delayMs) {
+        final int delayTicks = this.toTicks(delayMs);
+        restore.rounds = (delayTicks - 1) / WHEEL_SIZE;
+        this.buckets[(int) ((this.currentTick + delayTicks) & WHEEL_MASK)].add(restore);
+        this.size++;
+    }
+    
+    /**
+     * Schedule a restore to run on the tick after its stat is seen reset
+     * (see {@link #promoteReset(Predicate)}), or after {@code timeoutMs} if that never happens.
+     */
+    public void scheduleOnReset(@Nonnull final PendingRestore restore, final long timeoutMs) {
+        restore.watched = true;
+        this.schedule(restore, timeoutMs);
+        this.watching.add(restore);
+    }
+    
+    /**
+     * Advance the wheel by one tick and collect every restore that is now due.
+     * 
+     * Restores scheduled one after the other for the same swap (see {@link PendingRestore#isSameSwap})
+     * and due on the same tick come out as adjacent entries, in schedule order: buckets and the
+     * watch list keep insertion order, and entries are only ever removed from them. The one
+     * exception is a swap whose adaptive restores became due partly through their reset (listed
+     * first) and partly through their timeout on the same tick, which comes out as two runs.
+     * 
+     * @param dt the length of the tick being processed, in seconds
+     * @return the due restores, valid until the next call
+     */
+    @Nonnull
+    public List<PendingRestore> advance(final float dt) {
+        this.due.clear();
+        if (dt > 0f) {
+            this.tickMillis = dt * 1000f;
+        }
+        this.currentTick++;
+        
+        // Restores whose reset was seen on the last check go first
+        for (int i = 0, n = this.ready.size(); i < n; i++) {
+            final PendingRestore restore = this.ready.get(i);
+            restore.settled = true;
+            this.due.add(restore);
+        }
+        this.ready.clear();
+        this.size -= this.due.size();
+        
+        final List<PendingRestore> bucket = this.buckets[(int) (this.currentTick & WHEEL_MASK)];
+        if (bucket.isEmpty()) {
+            return this.due;
+        }
+        
+        // Move due entries out, compacting the ones that still have revolutions to wait
+        // and dropping the timeouts of restores that already became due
+        final int early = this.due.size();
+        int kept = 0;
+        for (int i = 0, n = bucket.size(); i < n; i++) {
+            final PendingRestore restore = bucket.get(i);
+            if (restore.settled) {
+                continue;
+            }
+            if (restore.rounds > 0) {
+                restore.rounds--;
+                bucket.set(kept++, restore);
+            } else {
+                restore.settled = restore.watched;
+                this.due.add(restore);
+            }
+        }
+        bucket.subList(kept, bucket.size()).clear();
+        this.size -= this.due.size() - early;
+        return this.due;
+    }
+    
+    /**
+     * Check every watched restore against the filter, which reports whether its stat is at its
+     * minimum. A reset counts as confirmed, and the restore becomes due on the next
+     * {@link #advance(float)}, when the stat drops to its minimum after having been seen above it,
+     * or stays there for {@link #RESET_CONFIRM_CHECKS} checks in a row. The first check after
+     * scheduling may fall on the swap tick itself and never confirms. Restores that reached their
+     * timeout stop being watched.
+     * 
+     * @return how many became due
+     */
+    public int promoteReset(@Nonnull final Predicate<PendingRestore> atMin) {
+        int kept = 0;
+        int promoted = 0;
+        for (int i = 0, n = this.watching.size(); i < n; i++) {
+            final PendingRestore restore = this.watching.get(i);
+            if (restore.settled) {
+                continue;
+            }
+            if (this.isResetConfirmed(restore, atMin.test(restore))) {
+                this.ready.add(restore);
+                promoted++;
+            } else {
+                this.watching.set(kept++, restore);
+            }
+        }
+        this.watching.subList(kept, this.watching.size()).clear();
+        return promoted;
+    }
+    
+    private boolean isResetConfirmed(@Nonnull final PendingRestore restore, final boolean atMin) {
+        if (restore.resetChecks++ == 0) {
+            // Possibly still the swap tick: the value only tells whether a drop is still to come
+            restore.seenAboveMin = !atMin;
+            return false;
+        }
+        if (!atMin) {
+            restore.seenAboveMin = true;
+            restore.ticksAtMin = 0;
+            return false;
+        }
+        return restore.seenAboveMin || ++restore.ticksAtMin >= RESET_CONFIRM_CHECKS;
+    }
+    
+    /**
+     * Whether any adaptive restore is waiting for its stat to be seen reset.
+     */
+    public boolean isWatching() {
+        return !this.watching.isEmpty();
+    }
+    
+    /**
+     * Drop every waiting restore matching the filter.
+     * 
+     * @return how many were dropped
+     */
+    public int removeIf(@Nonnull final Predicate<PendingRestore> filter) {
+        if (this.size == 0) {
+            return 0;
+        }
+        int removed = 0;
+        for (final List<PendingRestore> bucket : this.buckets) {
+            int kept = 0;
+            for (int i = 0, n = bucket.size(); i < n; i++) {
+                final PendingRestore restore = bucket.get(i);
+                if (!filter.test(restore)) {
+                    bucket.set(kept++, restore);
+                } else if (!restore.settled) {
+                    // Leftover timeouts of restores that already became due aren't counted
+                    removed++;
+                }
+            }
+            bucket.subList(kept, bucket.size()).clear();
+        }
+        this.watching.removeIf(filter);
+        this.ready.removeIf(filter);
+        this.size -= removed;
+        return removed;
+    }
+    
+    /**
+     * Drop waiting restores whose player has left this world (disconnected, moved or removed).
+     * 
+     * @return how many were dropped
+     */
+    public int sweepInvalid() {
+        return this.removeIf(restore -> !restore.getEntityRef().isValid());
+    }
+    
+    public long getCurrentTick() {
+        return this.currentTick;
+    }
+    
+    /**
+     * Number of restores currently waiting.
+     */
+    public int size() {
+        return this.size;
+    }
+    
+    private int toTicks(final long delayMs) {
+        return Math.max(1, (int) Math.ceil(delayMs / this.tickMillis));
+    }
+    
+    @Nonnull
+    @Override
+    public Resource<EntityStore> clone() {
+        // Pending restores are transient, a copied store starts with an empty wheel
+        return new RestoreQueue();
+    }
+}
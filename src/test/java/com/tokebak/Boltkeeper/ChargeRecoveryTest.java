@@ -0,0 +1,125 @@
+package com.tokebak.Boltkeeper;
+
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import com.tokebak.Boltkeeper.restore.PendingRestore;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * A server killed inside the restore window: the restore queue and the players' trackers are lost,
+ * only the inventories (with the charges saved on the weapons) survive. On the player's first tick in
+ * the restarted world the charges must come back exactly once, and a restore left over from before the
+ * kill must not apply them a second time.
+ */
+public class ChargeRecoveryTest {
+    
+    private static final long RESTORE_DELAY_MS = 100L;
+    
+    /**
+     * Enough ticks for any restore scheduled with {@link #RESTORE_DELAY_MS} to become due.
+     */
+    private static final int RESTORE_TICKS = 30;
+    
+    @Test
+    public void staffChargesComeBackOnceAfterAKillMidWindow() {
+        final StandInWorld before = new StandInWorld(RESTORE_DELAY_MS, false);
+        final StandInWorld.StandInPlayer player = before.join(0);
+        before.tick();
+        before.swap(player, StandInWorld.STAFF_SLOT);
+        before.tick();
+        before.charge(player);
+        before.tick();
+        final List<PendingRestore> stale = this.killMidWindow(before, player);
+        
+        final StandInWorld after = new StandInWorld(RESTORE_DELAY_MS, false);
+        final StandInWorld.StandInPlayer rejoined = after.join(player.inventory);
+        this.recover(after, rejoined, StandInWorld.STAFF_SLOT, stale);
+        
+        assertEquals(3f, rejoined.statMap.read(after.getMagicChargesSlot()));
+        assertEquals(1L, rejoined.statMap.getWrites(), "stat writes");
+        assertEquals(1L, after.getMetrics().getRestoresByProfile().get("FireStaff"), "restores");
+    }
+    
+    @Test
+    public void crossbowBoltComesBackOnceAfterAKillMidWindow() {
+        final StandInWorld before = new StandInWorld(RESTORE_DELAY_MS, false);
+        final StandInWorld.StandInPlayer player = before.join(0);
+        before.tick();
+        before.charge(player);
+        before.tick();
+        final List<PendingRestore> stale = this.killMidWindow(before, player);
+        // The bolt went back to the arrow stack when the crossbow was put away
+        assertEquals(StandInWorld.ARROW_STACK, this.arrows(player));
+        
+        final StandInWorld after = new StandInWorld(RESTORE_DELAY_MS, false);
+        final StandInWorld.StandInPlayer rejoined = after.join(player.inventory);
+        this.recover(after, rejoined, StandInWorld.CROSSBOW_SLOT, stale);
+        
+        assertEquals(1f, rejoined.statMap.read(after.getAmmoSlot()));
+        assertEquals(StandInWorld.ARROW_STACK - 1, this.arrows(rejoined), "the restored bolt must come from the stack");
+        assertEquals(1L, rejoined.statMap.getWrites(), "stat writes");
+        assertEquals(1L, after.getMetrics().getRestoresByProfile().get("Crossbow"), "restores");
+    }
+    
+    /**
+     * Put the charged weapon the player holds away and take it back out, then kill the world before
+     * the restore applies. Returns the restore that was pending, as it would have been had it survived.
+     */
+    private List<PendingRestore> killMidWindow(final StandInWorld world, final StandInWorld.StandInPlayer player) {
+        final byte weaponSlot = player.inventory.getActiveHotbarSlot();
+        world.swap(player, StandInWorld.FOOD_SLOT);
+        world.tick();
+        assertNotNull(world.savedCharges(player, weaponSlot), "putting the weapon away saves its charges");
+        world.swap(player, weaponSlot);
+        world.tickPlayer(player);
+        assertEquals(1, world.getQueue().size());
+        
+        // Kill: nothing the world held in memory survives. Run the queue on (without applying
+        // anything) only to keep its restore
+        final List<PendingRestore> stale = new ArrayList<>();
+        for (int t = 0; t < RESTORE_TICKS && stale.isEmpty(); t++) {
+            stale.addAll(world.getQueue().advance(StandInWorld.TICK_SECONDS));
+        }
+        assertEquals(1, stale.size());
+        assertNotNull(world.savedCharges(player, weaponSlot), "charges stay saved until their restore applies");
+        return stale;
+    }
+    
+    /**
+     * The player's first ticks in the restarted world, then the stale restore and a second replay.
+     */
+    private void recover(
+            final StandInWorld world,
+            final StandInWorld.StandInPlayer player,
+            final byte weaponSlot,
+            final List<PendingRestore> stale
+    ) {
+        world.tick();
+        assertEquals(1, world.getQueue().size(), "the first tick replays the saved charges");
+        for (int t = 0; t < RESTORE_TICKS; t++) {
+            world.tick();
+        }
+        assertEquals(0, world.getQueue().size());
+        assertNull(world.savedCharges(player, weaponSlot), "applied charges are cleared from the weapon");
+        
+        // A restore from before the kill showing up now must find nothing left to apply
+        world.getSystem().applyRestoreGroup(stale, 0, stale.size(), player.tracker, player.inventory,
+                player.statMap, player.slotIndex, world.worldMetrics);
+        
+        // Nor may replaying again (a fresh tracker, as after another restart) schedule anything
+        player.tracker = null;
+        world.tick();
+        assertEquals(0, world.getQueue().size(), "nothing left to replay");
+    }
+    
+    private int arrows(final StandInWorld.StandInPlayer player) {
+        final ItemStack stack = player.inventory.getStorage().getItemStack(StandInWorld.ARROW_SLOT);
+        return stack != null ? stack.getQuantity() : 0;
+    }
+}
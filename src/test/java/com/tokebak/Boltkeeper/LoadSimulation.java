@@ -0,0 +1,195 @@
+package com.tokebak.Boltkeeper;
+
+import com.tokebak.Boltkeeper.metrics.BoltkeeperMetrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Headless load simulator: worlds of stand-in players (see {@link StandInWorld}) ticked by the real
+ * {@link BoltkeeperSystem} at 30 ticks per second, with every player swapping at the rate of a swap
+ * profile. For each profile and player count it reports the percentiles of Boltkeeper's share of the
+ * world tick, restore latency (from scheduling to applied, in wall time, so an overrunning tick shows
+ * up in it) and heap held by the world before and after the run.
+ * 
+ * Runs offline: {@code ./gradlew loadSimulation}, with options passed as
+ * {@code -PsimArgs="--players 100,1000,5000 --profiles IDLE,CASUAL,PVP --seconds 10 --delay 100 --adaptive"}.
+ * 
+ * Only the plugin's own work is simulated. The server's share of the tick, and the ECS around the
+ * plugin (archetype chunks, command buffers, parallel dispatch), are not.
+ */
+public final class LoadSimulation {
+    
+    private static final long TICK_NANOS = 1_000_000_000L / 30;
+    
+    /**
+     * Chance per tick that a player holding an empty weapon loads or charges it (about every half second).
+     */
+    private static final double CHARGE_CHANCE_PER_TICK = 1.0 / 15;
+    
+    private static final byte[] HOTBAR = {StandInWorld.CROSSBOW_SLOT, StandInWorld.STAFF_SLOT, StandInWorld.FOOD_SLOT};
+    
+    private static final int BACKPACK_CAPACITY = 9;
+    
+    /**
+     * Swap profiles, as the chance that a player switches hotbar slot in a given tick.
+     */
+    public enum SwapProfile {
+        /** AFK or building: a swap every few minutes. */
+        IDLE(1.0 / (30 * 300)),
+        /** Normal play: a swap every ~10 seconds. */
+        CASUAL(1.0 / (30 * 10)),
+        /** PvP scroll-spamming: several swaps per second. */
+        PVP(0.15);
+        
+        private final double swapChancePerTick;
+        
+        SwapProfile(final double swapChancePerTick) {
+            this.swapChancePerTick = swapChancePerTick;
+        }
+    }
+    
+    private int[] playerCounts = {100, 1000, 5000};
+    
+    private SwapProfile[] profiles = SwapProfile.values();
+    
+    private int seconds = 10;
+    
+    private long restoreDelayMs = 100L;
+    
+    private boolean adaptive;
+    
+    private final SplittableRandom random = new SplittableRandom(42L);
+    
+    public static void main(final String[] args) {
+        final LoadSimulation simulation = new LoadSimulation();
+        simulation.parse(args);
+        simulation.run();
+    }
+    
+    private void parse(final String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--players" -> this.playerCounts = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray();
+                case "--profiles" -> this.profiles = Arrays.stream(args[++i].split(","))
+                        .map(name -> SwapProfile.valueOf(name.toUpperCase(Locale.ROOT)))
+                        .toArray(SwapProfile[]::new);
+                case "--seconds" -> this.seconds = Integer.parseInt(args[++i]);
+                case "--delay" -> this.restoreDelayMs = Long.parseLong(args[++i]);
+                case "--adaptive" -> this.adaptive = true;
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+    }
+    
+    private void run() {
+        System.out.printf("Boltkeeper load simulation: %ds per run, RestoreDelayMs %d%s%n",
+                this.seconds, this.restoreDelayMs, this.adaptive ? " (adaptive)" : "");
+        
+        // Let the JIT compile the tick paths before anything is measured
+        this.simulate(SwapProfile.PVP, 1000, 30 * 5, false);
+        
+        System.out.println("profile  players  tick p50 us  p99 us  p99.9 us  max us  p99 % of tick"
+                + "  swaps  restores  restore p50 ms  p99 ms  world KB  heap growth KB");
+        for (final SwapProfile profile : this.profiles) {
+            for (final int players : this.playerCounts) {
+                this.simulate(profile, players, this.seconds * 30, true);
+            }
+        }
+    }
+    
+    /**
+     * Run one world for {@code ticks} ticks, paced at 30 per second if {@code report}ing, and print its line.
+     */
+    private void simulate(final SwapProfile profile, final int players, final int ticks, final boolean report) {
+        final long heapBefore = usedHeap();
+        
+        final StandInWorld world = new StandInWorld(this.restoreDelayMs, this.adaptive);
+        for (int i = 0; i < players; i++) {
+            world.join(BACKPACK_CAPACITY);
+        }
+        world.tick();
+        final long heapBaseline = usedHeap();
+        
+        final long[] tickNanos = new long[ticks];
+        long deadline = System.nanoTime();
+        long previousStart = deadline;
+        for (int t = 0; t < ticks; t++) {
+            if (report) {
+                deadline += TICK_NANOS;
+                final long wait = deadline - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                } else {
+                    // Fell behind: run the next tick now instead of bursting to catch up
+                    deadline = System.nanoTime();
+                }
+            }
+            this.play(world, profile);
+            
+            final long start = System.nanoTime();
+            final float dt = report ? (start - previousStart) / 1e9f : StandInWorld.TICK_SECONDS;
+            world.tick(dt);
+            tickNanos[t] = System.nanoTime() - start;
+            previousStart = start;
+        }
+        
+        final long heapAfter = usedHeap();
+        if (!report) {
+            return;
+        }
+        
+        Arrays.sort(tickNanos);
+        final BoltkeeperMetrics metrics = world.getMetrics();
+        final long restores = metrics.getRestoresByProfile().values().stream().mapToLong(Long::longValue).sum();
+        System.out.printf(Locale.ROOT, "%-7s  %7d  %11.1f  %6.1f  %8.1f  %6.1f  %13.2f  %5d  %8d  %14d  %6d  %8d  %14d%n",
+                profile,
+                players,
+                percentile(tickNanos, 0.50) / 1e3,
+                percentile(tickNanos, 0.99) / 1e3,
+                percentile(tickNanos, 0.999) / 1e3,
+                tickNanos[tickNanos.length - 1] / 1e3,
+                100.0 * percentile(tickNanos, 0.99) / TICK_NANOS,
+                metrics.getSwaps(),
+                restores,
+                metrics.getRestoreDelayP50Millis(),
+                metrics.getRestoreDelayP99Millis(),
+                (heapBaseline - heapBefore) / 1024,
+                (heapAfter - heapBaseline) / 1024);
+    }
+    
+    /**
+     * What the players do between two ticks: swap at the profile's rate, and load or charge the weapon they hold.
+     */
+    private void play(final StandInWorld world, final SwapProfile profile) {
+        for (final StandInWorld.StandInPlayer player : world.getPlayers()) {
+            if (this.random.nextDouble() < profile.swapChancePerTick) {
+                final byte held = player.inventory.getActiveHotbarSlot();
+                byte slot = held;
+                while (slot == held) {
+                    slot = HOTBAR[this.random.nextInt(HOTBAR.length)];
+                }
+                world.swap(player, slot);
+            } else if (this.random.nextDouble() < CHARGE_CHANCE_PER_TICK) {
+                world.charge(player);
+            }
+        }
+    }
+    
+    private static long percentile(final long[] sorted, final double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (p * sorted.length))];
+    }
+    
+    /**
+     * Heap in use after a full collection, as close to live data as the JVM lets us see.
+     */
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,139 @@
+package com.tokebak.Boltkeeper;
+
+import com.tokebak.Boltkeeper.components.ChargeTrackerComponent;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Soak test of player churn: a full world of players swapping, charging, disconnecting and moving to
+ * other worlds for 100k join/leave cycles, run through {@link BoltkeeperSystem} and the disconnect,
+ * drain and sweep handlers of {@link BoltkeeperRestoreSystem} (see {@link StandInWorld}).
+ * Nothing a player leaves behind may stay in the world: the restore queue, the pending gauge, the
+ * players' trackers and the heap stay flat.
+ */
+public class PlayerChurnTest {
+    
+    private static final int PLAYERS = 64;
+    
+    private static final int CYCLES = 100_000;
+    
+    /**
+     * Cycles run before the heap baseline is taken, so the JIT and the metrics' histograms have settled.
+     */
+    private static final int WARMUP_CYCLES = 10_000;
+    
+    private static final long MAX_HEAP_GROWTH_BYTES = 8L * 1024 * 1024;
+    
+    private static final byte[] HOTBAR = {StandInWorld.CROSSBOW_SLOT, StandInWorld.STAFF_SLOT, StandInWorld.FOOD_SLOT};
+    
+    private final Random random = new Random(42);
+    
+    @Test
+    public void stateStaysFlatAcrossDisconnects() {
+        this.churn(new StandInWorld(500L, false));
+    }
+    
+    @Test
+    public void stateStaysFlatAcrossDisconnectsInAdaptiveMode() {
+        this.churn(new StandInWorld(2_000L, true));
+    }
+    
+    private void churn(final StandInWorld world) {
+        for (int i = 0; i < PLAYERS; i++) {
+            world.join(9);
+        }
+        
+        final int maxPending = PLAYERS * world.stats.size();
+        long heapBaseline = -1L;
+        int cycles = 0;
+        long transferredWithRestores = 0;
+        while (cycles < CYCLES) {
+            final List<StandInWorld.StandInPlayer> leaving = new ArrayList<>();
+            for (final StandInWorld.StandInPlayer player : world.getPlayers()) {
+                final int roll = this.random.nextInt(100);
+                if (roll < 10) {
+                    this.swap(world, player);
+                } else if (roll < 30) {
+                    world.charge(player);
+                } else if (roll < 32) {
+                    leaving.add(player);
+                }
+            }
+            for (final StandInWorld.StandInPlayer player : leaving) {
+                if (this.random.nextBoolean()) {
+                    world.disconnect(player);
+                } else {
+                    final ChargeTrackerComponent tracker = world.transferOut(player);
+                    if (tracker != null && tracker.hasTransferredRestores()) {
+                        transferredWithRestores++;
+                    }
+                }
+                world.join(9);
+                cycles++;
+            }
+            // Matches nothing (and so removes nothing) unless a restore of a player who left is still queued
+            assertEquals(0, world.getQueue().removeIf(restore -> !restore.getEntityRef().isValid()),
+                    "restores of players who left stayed queued");
+            world.tick();
+            
+            assertEquals(PLAYERS, world.getPlayers().size());
+            assertEquals(world.getQueue().size(), world.getMetrics().getPendingRestores());
+            assertTrue(world.getQueue().size() <= maxPending, "restores of players who left stayed queued");
+            if (heapBaseline < 0 && cycles >= WARMUP_CYCLES) {
+                heapBaseline = usedHeap();
+            }
+        }
+        
+        final long heapGrowth = usedHeap() - heapBaseline;
+        assertTrue(heapGrowth < MAX_HEAP_GROWTH_BYTES, "heap grew by " + heapGrowth + " bytes");
+        assertTrue(world.getMetrics().getDroppedRestores() > 0, "the churn should have dropped restores");
+        assertTrue(transferredWithRestores > 0, "the churn should have moved pending restores out");
+        
+        // Once the players who stay stop swapping, everything pending applies and nothing is left over
+        for (int t = 0; t < 1_000; t++) {
+            world.tick();
+        }
+        assertEquals(0, world.getQueue().size());
+        for (final StandInWorld.StandInPlayer player : world.getPlayers()) {
+            final ChargeTrackerComponent tracker = player.tracker;
+            assertTrue(tracker != null, "every player has been ticked");
+            assertEquals(-1, tracker.getPendingSlot(), "nothing is pending once the queue is empty");
+            assertEquals(world.stats.size(), tracker.getPreviousValues().length);
+        }
+        
+        // And once they all leave, neither does anything they had
+        for (final StandInWorld.StandInPlayer player : new ArrayList<>(world.getPlayers())) {
+            world.disconnect(player);
+        }
+        world.tick();
+        assertEquals(0, world.getPlayers().size());
+        assertEquals(0, world.getQueue().size());
+        assertEquals(0, world.getMetrics().getPendingRestores());
+    }
+    
+    private void swap(final StandInWorld world, final StandInWorld.StandInPlayer player) {
+        final byte held = player.inventory.getActiveHotbarSlot();
+        byte slot = held;
+        while (slot == held) {
+            slot = HOTBAR[this.random.nextInt(HOTBAR.length)];
+        }
+        world.swap(player, slot);
+    }
+    
+    /**
+     * Heap in use after a full collection.
+     */
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,480 @@
+package com.tokebak.Boltkeeper;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.server.core.asset.type.item.config.Item;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.tokebak.Boltkeeper.components.ChargeTrackerComponent;
+import com.tokebak.Boltkeeper.components.ConsumableSlotIndex;
+import com.tokebak.Boltkeeper.logging.DebugLog;
+import com.tokebak.Boltkeeper.metrics.BoltkeeperMetrics;
+import com.tokebak.Boltkeeper.metrics.WorldMetrics;
+import com.tokebak.Boltkeeper.restore.PendingRestore;
+import com.tokebak.Boltkeeper.restore.RestoreQueue;
+import com.tokebak.Boltkeeper.standin.StandInInventory;
+import com.tokebak.Boltkeeper.standin.StandInItem;
+import com.tokebak.Boltkeeper.standin.StandInItemStack;
+import com.tokebak.Boltkeeper.standin.StandInRef;
+import com.tokebak.Boltkeeper.standin.StandInStatMap;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One world of players running the real {@link BoltkeeperSystem}, classifier, consumable matcher and
+ * {@link RestoreQueue}, with each player's components held in plain fields built from stand-ins
+ * (see the {@code standin} package) instead of a server.
+ * 
+ * {@link #tickPlayer} is one player's share of the poll-mode chunk tick and {@link #restoreTick} is
+ * {@link BoltkeeperRestoreSystem}'s tick. The ECS around them (archetype chunks, component lookups,
+ * command buffers, parallel dispatch) is not simulated: deferred work runs inline.
+ */
+public class StandInWorld {
+    
+    public static final float TICK_SECONDS = 1f / 30f;
+    
+    public static final byte CROSSBOW_SLOT = 0;
+    
+    public static final byte STAFF_SLOT = 1;
+    
+    /**
+     * A hotbar slot holding something Boltkeeper doesn't handle.
+     */
+    public static final byte FOOD_SLOT = 2;
+    
+    public static final int HOTBAR_CAPACITY = 9;
+    
+    public static final int STORAGE_CAPACITY = 36;
+    
+    /**
+     * Storage slot of each player's arrow stack.
+     */
+    public static final short ARROW_SLOT = 0;
+    
+    public static final int ARROW_STACK = 100;
+    
+    public static final int ESSENCE_STACK = 64;
+    
+    public final StandInItem crossbow = new StandInItem("Weapon_Crossbow_Iron");
+    
+    public final StandInItem staff = new StandInItem("Weapon_Staff_Crystal_Flame");
+    
+    public final StandInItem arrow = new StandInItem("Weapon_Arrow_Crude");
+    
+    public final StandInItem essence = new StandInItem("Ingredient_Fire_Essence");
+    
+    public final StandInItem food = new StandInItem("Food_Bread");
+    
+    /**
+     * This world's items by id, as the Item asset map would hold them.
+     */
+    private final Map<String, StandInItem> items = new HashMap<>();
+    
+    final ResolvedStats stats;
+    
+    final WeaponClassifier classifier;
+    
+    final ConsumableMatcher matcher;
+    
+    final BoltkeeperMetrics metrics;
+    
+    final BoltkeeperSystem system;
+    
+    final BoltkeeperRestoreSystem restoreSystem;
+    
+    final ConfigSnapshot settings;
+    
+    final RestoreQueue queue = new RestoreQueue();
+    
+    final WorldMetrics worldMetrics = new WorldMetrics();
+    
+    /**
+     * Tracked stat slots (the stand-in stat maps use them as stat indices too).
+     */
+    final int ammo;
+    
+    final int magicCharges;
+    
+    private final List<StandInPlayer> players = new ArrayList<>();
+    
+    private final Map<Ref<EntityStore>, StandInPlayer> byRef = new IdentityHashMap<>();
+    
+    private int nextRef;
+    
+    /**
+     * One player's components, as the chunk would hold them.
+     */
+    public static final class StandInPlayer {
+        
+        public final StandInRef ref;
+        
+        public final StandInInventory inventory;
+        
+        public final StandInStatMap statMap;
+        
+        public final ConsumableSlotIndex slotIndex;
+        
+        /**
+         * Null until the player's first tick, like the component it stands for.
+         */
+        @Nullable
+        public ChargeTrackerComponent tracker;
+        
+        private StandInPlayer(
+                @Nonnull final StandInRef ref,
+                @Nonnull final StandInInventory inventory,
+                @Nonnull final StandInStatMap statMap,
+                @Nonnull final ConsumableSlotIndex slotIndex
+        ) {
+            this.ref = ref;
+            this.inventory = inventory;
+            this.statMap = statMap;
+            this.slotIndex = slotIndex;
+        }
+    }
+    
+    /**
+     * @param restoreDelayMs RestoreDelayMs (a timeout in adaptive mode)
+     * @param adaptive       whether restores wait for the stat's reset to be seen
+     */
+    public StandInWorld(final long restoreDelayMs, final boolean adaptive) {
+        final BoltkeeperConfig config = new BoltkeeperConfig();
+        config.setRestoreDelayMs(restoreDelayMs);
+        config.setRestoreMode(adaptive ? BoltkeeperConfig.RESTORE_MODE_ADAPTIVE : BoltkeeperConfig.RESTORE_MODE_DELAY);
+        // Exact ids: stand-in items are no weapons, which id patterns require
+        config.setWeaponProfiles(new WeaponProfileConfig[]{
+                new WeaponProfileConfig("Crossbow", new String[]{"Ammo"}, new String[]{"Ammo"},
+                        new String[]{this.crossbow.getId()}, new String[0]),
+                new WeaponProfileConfig("FireStaff", new String[]{"MagicCharges"}, new String[0],
+                        new String[]{this.staff.getId()}, new String[0])
+        });
+        this.settings = ConfigSnapshot.of(config, 0);
+        
+        this.stats = ResolvedStats.fromProfiles(config.getWeaponProfiles());
+        this.stats.refresh(this.stats::getSlot);
+        this.ammo = this.stats.getSlot("Ammo");
+        this.magicCharges = this.stats.getSlot("MagicCharges");
+        
+        final Map<String, Item> items = new HashMap<>();
+        for (final StandInItem item : new StandInItem[]{this.crossbow, this.staff, this.arrow, this.essence, this.food}) {
+            items.put(item.getId(), item);
+            this.items.put(item.getId(), item);
+        }
+        this.classifier = new WeaponClassifier(config.getWeaponProfiles(), this.stats);
+        this.classifier.rebuild(items);
+        final ConsumableConfig[] consumables = new ConsumableConfig[ConsumableSlotIndex.KIND_COUNT];
+        consumables[ConsumableSlotIndex.ARROW] = config.getArrows();
+        consumables[ConsumableSlotIndex.ESSENCE] = config.getEssences();
+        this.matcher = new ConsumableMatcher(consumables);
+        this.matcher.rebuild(items);
+        
+        final String[] profileIds = new String[config.getWeaponProfiles().length];
+        for (int i = 0; i < profileIds.length; i++) {
+            profileIds[i] = config.getWeaponProfiles()[i].getId();
+        }
+        this.metrics = new BoltkeeperMetrics(profileIds);
+        this.metrics.setPendingRestoresSource(this.queue::size);
+        this.system = new BoltkeeperSystem(
+                new LiveConfig(config),
+                this.stats,
+                this.classifier,
+                this.metrics,
+                new DebugLog(Path.of("boltkeeper-standin-debug.log"), 2)
+        );
+        this.restoreSystem = new BoltkeeperRestoreSystem(this.system, this.metrics);
+    }
+    
+    // ==================== PLAYERS ====================
+    
+    /**
+     * Add a player holding a crossbow, with a Fire Staff and food next to it on the hotbar, a stack of
+     * arrows in storage and a stack of Fire Essence in the last backpack slot (last storage slot without a backpack).
+     * Their components are set up on their first {@link #tickPlayer}.
+     */
+    @Nonnull
+    public StandInPlayer join(final int backpackCapacity) {
+        final StandInInventory inventory = new StandInInventory(HOTBAR_CAPACITY, STORAGE_CAPACITY, backpackCapacity);
+        inventory.getHotbar().setItemStackForSlot(CROSSBOW_SLOT, new StandInItemStack(this.crossbow, 1));
+        inventory.getHotbar().setItemStackForSlot(STAFF_SLOT, new StandInItemStack(this.staff, 1));
+        inventory.getHotbar().setItemStackForSlot(FOOD_SLOT, new StandInItemStack(this.food, 5));
+        inventory.getStorage().setItemStackForSlot(ARROW_SLOT, new StandInItemStack(this.arrow, ARROW_STACK));
+        final ItemContainer essences = backpackCapacity > 0 ? inventory.getBackpack() : inventory.getStorage();
+        essences.setItemStackForSlot((short) (essences.getCapacity() - 1), new StandInItemStack(this.essence, ESSENCE_STACK));
+        
+        return this.add(inventory);
+    }
+    
+    /**
+     * Add a player with the inventory they had in another world (saved by the server when they left
+     * or it went down), loaded the way the server would: every stack read back by item id, with its
+     * quantity and metadata. Everything else about them starts fresh: stats at 0, components set up on
+     * their first {@link #tickPlayer}.
+     */
+    @Nonnull
+    public StandInPlayer join(@Nonnull final StandInInventory saved) {
+        final StandInInventory inventory = new StandInInventory(
+                saved.getHotbar().getCapacity(),
+                saved.getStorage().getCapacity(),
+                saved.getBackpack().getCapacity()
+        );
+        for (int container = 0; container < ConsumableSlotIndex.CONTAINER_COUNT; container++) {
+            final ItemContainer from = ConsumableSlotIndex.getContainer(saved, container);
+            final ItemContainer to = ConsumableSlotIndex.getContainer(inventory, container);
+            for (short slot = 0; slot < from.getCapacity(); slot++) {
+                final ItemStack stack = from.getItemStack(slot);
+                if (stack != null) {
+                    to.setItemStackForSlot(slot, new StandInItemStack(
+                            this.items.get(stack.getItem().getId()), stack.getQuantity(), stack.getMetadata()));
+                }
+            }
+        }
+        inventory.select(saved.getActiveHotbarSlot());
+        return this.add(inventory);
+    }
+    
+    @Nonnull
+    private StandInPlayer add(@Nonnull final StandInInventory inventory) {
+        final StandInPlayer player = new StandInPlayer(
+                new StandInRef(this.nextRef++),
+                inventory,
+                new StandInStatMap(this.stats.size()),
+                new ConsumableSlotIndex(this.matcher)
+        );
+        this.players.add(player);
+        this.byRef.put(player.ref, player);
+        return player;
+    }
+    
+    /**
+     * The player disconnects: their entity goes away and the disconnect handler drops their restores.
+     */
+    public void disconnect(@Nonnull final StandInPlayer player) {
+        this.remove(player);
+        this.restoreSystem.dropRestoresOf(player.ref, this.queue, this.worldMetrics);
+    }
+    
+    /**
+     * The player moves to another world: the drain handler hands their pending restores to their
+     * tracker, their entity here goes away and the queue is swept. Returns the tracker as it travels.
+     */
+    @Nullable
+    public ChargeTrackerComponent transferOut(@Nonnull final StandInPlayer player) {
+        if (player.tracker != null) {
+            player.tracker.onLeftWorld();
+        }
+        this.remove(player);
+        this.restoreSystem.sweep(this.queue, this.worldMetrics);
+        return player.tracker;
+    }
+    
+    private void remove(@Nonnull final StandInPlayer player) {
+        player.ref.invalidate();
+        this.players.remove(player);
+        this.byRef.remove(player.ref);
+    }
+    
+    @Nonnull
+    public List<StandInPlayer> getPlayers() {
+        return this.players;
+    }
+    
+    @Nullable
+    public StandInPlayer getPlayer(@Nonnull final Ref<EntityStore> ref) {
+        return this.byRef.get(ref);
+    }
+    
+    // ==================== WHAT THE GAME DOES ====================
+    
+    /**
+     * The player switches hotbar slot, with what vanilla does on the way: bolts loaded in a crossbow
+     * being put away go back into the inventory, and the weapon stats reset.
+     */
+    public void swap(@Nonnull final StandInPlayer player, final byte slot) {
+        final float loaded = player.statMap.read(this.ammo);
+        if (player.inventory.getActiveHotbarSlot() == CROSSBOW_SLOT && loaded > 0) {
+            this.addArrows(player, (int) loaded);
+        }
+        player.inventory.select(slot);
+        player.statMap.put(this.ammo, 0f);
+        player.statMap.put(this.magicCharges, 0f);
+    }
+    
+    /**
+     * The player loads or charges the weapon they hold, if it is empty: a crossbow loads one bolt from
+     * the arrow stack, a staff gathers three charges.
+     */
+    public void charge(@Nonnull final StandInPlayer player) {
+        final byte slot = player.inventory.getActiveHotbarSlot();
+        if (slot == CROSSBOW_SLOT && player.statMap.read(this.ammo) == 0f && this.addArrows(player, -1)) {
+            player.statMap.put(this.ammo, 1f);
+        } else if (slot == STAFF_SLOT && player.statMap.read(this.magicCharges) == 0f) {
+            player.statMap.put(this.magicCharges, 3f);
+        }
+    }
+    
+    /**
+     * Change the arrow stack by {@code delta}, keeping the slot index current. False if it holds too few.
+     */
+    private boolean addArrows(@Nonnull final StandInPlayer player, final int delta) {
+        final ItemContainer storage = player.inventory.getStorage();
+        final ItemStack stack = storage.getItemStack(ARROW_SLOT);
+        final int quantity = (stack != null ? stack.getQuantity() : 0) + delta;
+        if (quantity < 0) {
+            return false;
+        }
+        storage.setItemStackForSlot(ARROW_SLOT, quantity > 0 ? new StandInItemStack(this.arrow, quantity) : null);
+        player.slotIndex.onSlotChanged(ConsumableSlotIndex.STORAGE, storage, ARROW_SLOT);
+        return true;
+    }
+    
+    // ==================== WHAT BOLTKEEPER DOES ====================
+    
+    /**
+     * One world tick: every player's share of the chunk tick, then the restore system's tick.
+     */
+    public void tick() {
+        this.tick(TICK_SECONDS);
+    }
+    
+    /**
+     * One world tick {@code dt} seconds after the previous one.
+     */
+    public void tick(final float dt) {
+        for (int i = 0, n = this.players.size(); i < n; i++) {
+            this.tickPlayer(this.players.get(i));
+        }
+        this.restoreTick(dt);
+    }
+    
+    /**
+     * One player's share of the poll-mode chunk tick: set up on the first tick (replaying charges
+     * still saved on the held weapon), then compare the active slot and handle a swap.
+     */
+    public void tickPlayer(@Nonnull final StandInPlayer player) {
+        final byte currentSlot = player.inventory.getActiveHotbarSlot();
+        final ChargeTrackerComponent tracker = player.tracker;
+        if (tracker == null) {
+            final ChargeTrackerComponent initial = new ChargeTrackerComponent(currentSlot, this.stats.size());
+            initial.track(player.statMap, this.stats);
+            initial.setConfigGeneration(this.settings.getGeneration());
+            player.tracker = initial;
+            this.system.replaySavedCharges(player.ref, player.inventory, initial, currentSlot, this.queue, this.settings);
+            return;
+        }
+        
+        final byte previousSlot = tracker.getLastActiveSlot();
+        final float[] valuesBeforeReset = this.system.poll(tracker, currentSlot, player.statMap);
+        if (valuesBeforeReset != null) {
+            this.system.handleSlotChange(
+                    player.ref,
+                    player.inventory,
+                    tracker,
+                    previousSlot,
+                    currentSlot,
+                    valuesBeforeReset,
+                    this.worldMetrics,
+                    this.queue,
+                    this.settings
+            );
+        }
+    }
+    
+    /**
+     * {@link BoltkeeperRestoreSystem}'s tick: apply the restores that are due, check adaptive ones for
+     * their reset, and sweep out restores of players who are gone when the sweep is due.
+     * 
+     * @return how many restores were due
+     */
+    public int restoreTick() {
+        return this.restoreTick(TICK_SECONDS);
+    }
+    
+    /**
+     * The restore system's tick {@code dt} seconds after the previous one.
+     * 
+     * @return how many restores were due
+     */
+    public int restoreTick(final float dt) {
+        final List<PendingRestore> due = this.queue.advance(dt);
+        final int count = due.size();
+        int start = 0;
+        while (start < count) {
+            final int end = BoltkeeperSystem.endOfSwap(due, start);
+            final StandInPlayer player = this.byRef.get(due.get(start).getEntityRef());
+            if (player != null && player.ref.isValid()) {
+                this.system.applyRestoreGroup(
+                        due,
+                        start,
+                        end,
+                        player.tracker,
+                        player.inventory,
+                        player.statMap,
+                        player.slotIndex,
+                        this.worldMetrics
+                );
+            }
+            start = end;
+        }
+        
+        if (this.queue.isWatching()) {
+            this.queue.promoteReset(restore -> {
+                final StandInPlayer player = this.byRef.get(restore.getEntityRef());
+                return player != null && player.ref.isValid() && this.stats.isAtMin(player.statMap, restore.getStatSlot());
+            });
+        }
+        this.restoreSystem.sweepIfDue(this.queue, this.worldMetrics);
+        return count;
+    }
+    
+    // ==================== STATE ====================
+    
+    public int getAmmoSlot() {
+        return this.ammo;
+    }
+    
+    public int getMagicChargesSlot() {
+        return this.magicCharges;
+    }
+    
+    @Nonnull
+    public BoltkeeperSystem getSystem() {
+        return this.system;
+    }
+    
+    @Nonnull
+    public BoltkeeperMetrics getMetrics() {
+        return this.metrics;
+    }
+    
+    @Nonnull
+    public RestoreQueue getQueue() {
+        return this.queue;
+    }
+    
+    @Nonnull
+    public WorldMetrics getWorldMetrics() {
+        return this.worldMetrics;
+    }
+    
+    @Nonnull
+    public ConsumableMatcher getMatcher() {
+        return this.matcher;
+    }
+    
+    /**
+     * The saved charges on a player's weapon, or null if none (see {@link ChargeMetadata#read}).
+     */
+    @Nullable
+    public float[] savedCharges(@Nonnull final StandInPlayer player, final byte slot) {
+        final ItemStack item = player.inventory.getHotbar().getItemStack(slot);
+        final WeaponProfile profile = this.classifier.classify(item);
+        return profile != null ? new ChargeMetadata(this.stats).read(item, profile) : null;
+    }
+}
@@ -0,0 +1,161 @@
+package com.tokebak.Boltkeeper.restore;
+
+import com.tokebak.Boltkeeper.ResolvedStats;
+import com.tokebak.Boltkeeper.WeaponProfile;
+import com.tokebak.Boltkeeper.WeaponProfileConfig;
+import com.tokebak.Boltkeeper.metrics.BoltkeeperMetrics;
+import com.tokebak.Boltkeeper.standin.StandInRef;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Simulated player churn against one world's {@link RestoreQueue}: players swap (delay and adaptive
+ * restores), disconnect and transfer to other worlds the way {@code BoltkeeperRestoreSystem} handles
+ * them. The queue's size and the pending gauge must track the restores actually in flight and end at 0.
+ */
+public class RestoreQueueLifecycleTest {
+    
+    private static final float TICK_SECONDS = 1f / 30f;
+    
+    private static final int PLAYERS = 64;
+    
+    private static final int CYCLES = 100_000;
+    
+    private static final ResolvedStats STATS = new ResolvedStats(new String[]{"Ammo", "MagicCharges"});
+    
+    private static final WeaponProfile PROFILE = WeaponProfile.compile(
+            new WeaponProfileConfig("Crossbow", new String[]{"Ammo", "MagicCharges"}, new String[]{"Ammo"}, new String[0], new String[0]),
+            0,
+            STATS
+    );
+    
+    private final Random random = new Random(42);
+    
+    private final RestoreQueue queue = new RestoreQueue();
+    
+    private final BoltkeeperMetrics metrics = new BoltkeeperMetrics(new String[]{"Crossbow"});
+    
+    /**
+     * Restores scheduled and not yet due or dropped.
+     */
+    private final Set<PendingRestore> inFlight = Collections.newSetFromMap(new IdentityHashMap<>());
+    
+    /**
+     * Current player in each seat; a player who leaves is replaced by a new one.
+     */
+    private final StandInRef[] seats = new StandInRef[PLAYERS];
+    
+    private int nextPlayer;
+    
+    private long dropped;
+    
+    @Test
+    public void queueAndGaugeReturnToZeroAcrossDisconnectsAndTransfers() {
+        this.metrics.setPendingRestoresSource(this.queue::size);
+        for (int seat = 0; seat < PLAYERS; seat++) {
+            this.seats[seat] = new StandInRef(this.nextPlayer++);
+        }
+        
+        int cycles = 0;
+        while (cycles < CYCLES) {
+            for (int seat = 0; seat < PLAYERS; seat++) {
+                final int roll = this.random.nextInt(100);
+                if (roll < 10) {
+                    this.swap(this.seats[seat]);
+                } else if (roll < 14) {
+                    // Disconnect or transfer: either way the player's restores leave this queue
+                    this.leave(this.seats[seat], this.random.nextBoolean());
+                    this.seats[seat] = new StandInRef(this.nextPlayer++);
+                    cycles++;
+                }
+            }
+            this.tick();
+        }
+        
+        // Everyone still here leaves, then the wheel runs long enough for any leftover timeout to pass
+        for (int seat = 0; seat < PLAYERS; seat++) {
+            this.leave(this.seats[seat], true);
+        }
+        for (int t = 0; t < 1_000; t++) {
+            this.tick();
+        }
+        
+        assertEquals(0, this.inFlight.size());
+        assertEquals(0, this.queue.size());
+        assertEquals(0, this.metrics.getPendingRestores());
+        assertEquals(this.dropped, this.metrics.getDroppedRestores());
+        assertTrue(this.dropped > 0, "the simulation should have dropped restores");
+    }
+    
+    @Test
+    public void restoresOfPlayersWhoStayAllBecomeDue() {
+        this.metrics.setPendingRestoresSource(this.queue::size);
+        for (int player = 0; player < PLAYERS; player++) {
+            this.swap(new StandInRef(player));
+        }
+        for (int t = 0; t < 1_000; t++) {
+            this.tick();
+        }
+        
+        assertEquals(0, this.inFlight.size());
+        assertEquals(0, this.queue.size());
+        assertEquals(0, this.metrics.getPendingRestores());
+        assertEquals(0, this.metrics.getDroppedRestores());
+    }
+    
+    /**
+     * Schedule the restores of one swap: delayed, or adaptive with a timeout, like {@code scheduleRestores}.
+     */
+    private void swap(final StandInRef player) {
+        final boolean adaptive = this.random.nextBoolean();
+        final long delayMs = 50 + this.random.nextInt(5_000);
+        for (int i = 0; i < PROFILE.getStatCount(); i++) {
+            final PendingRestore restore = new PendingRestore(
+                    player, PROFILE, PROFILE.getStatSlot(i), 3f, (byte) 0, PROFILE.isArrowBacked(i), 0);
+            this.inFlight.add(restore);
+            if (adaptive) {
+                this.queue.scheduleOnReset(restore, delayMs);
+            } else {
+                this.queue.schedule(restore, delayMs);
+            }
+        }
+    }
+    
+    /**
+     * The player's entity goes away, then their restores are dropped the way the disconnect handler
+     * (by ref) or the drain-from-world handler (by sweeping invalid refs) drops them.
+     */
+    private void leave(final StandInRef player, final boolean disconnect) {
+        player.invalidate();
+        final int removed = disconnect
+                ? this.queue.removeIf(restore -> restore.getEntityRef().equals(player))
+                : this.queue.sweepInvalid();
+        this.inFlight.removeIf(restore -> restore.getEntityRef() == player);
+        this.metrics.recordRestoresDropped(removed);
+        this.dropped += removed;
+        assertEquals(this.inFlight.size(), this.queue.size());
+    }
+    
+    /**
+     * One world tick of {@code BoltkeeperRestoreSystem}: drain due restores, then check adaptive ones for their reset.
+     */
+    private void tick() {
+        final List<PendingRestore> due = this.queue.advance(TICK_SECONDS);
+        for (int i = 0, n = due.size(); i < n; i++) {
+            assertTrue(this.inFlight.remove(due.get(i)), "a restore became due twice or after being dropped");
+        }
+        if (this.queue.isWatching()) {
+            this.queue.promoteReset(restore -> this.random.nextInt(4) == 0);
+        }
+        assertEquals(this.inFlight.size(), this.queue.size());
+        assertEquals(this.queue.size(), this.metrics.getPendingRestores());
+    }
+}
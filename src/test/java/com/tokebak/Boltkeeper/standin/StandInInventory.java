@@ -0,0 +1,58 @@
+package com.tokebak.Boltkeeper.standin;
+
+import com.hypixel.hytale.server.core.inventory.Inventory;
+import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
+import com.hypixel.hytale.server.core.inventory.container.SimpleItemContainer;
+
+import javax.annotation.Nonnull;
+
+/**
+ * An {@link Inventory} whose hotbar, storage and backpack are plain {@link SimpleItemContainer}s of
+ * chosen sizes, and whose active hotbar slot is set directly instead of through slot switch handling.
+ */
+public class StandInInventory extends Inventory {
+    
+    private final ItemContainer hotbar;
+    
+    private final ItemContainer storage;
+    
+    private final ItemContainer backpack;
+    
+    private byte activeHotbarSlot;
+    
+    public StandInInventory(final int hotbarCapacity, final int storageCapacity, final int backpackCapacity) {
+        this.hotbar = new SimpleItemContainer((short) hotbarCapacity);
+        this.storage = new SimpleItemContainer((short) storageCapacity);
+        this.backpack = new SimpleItemContainer((short) backpackCapacity);
+    }
+    
+    /**
+     * Make another hotbar slot the active one, as a player scrolling their hotbar would.
+     */
+    public void select(final byte slot) {
+        this.activeHotbarSlot = slot;
+    }
+    
+    @Override
+    public byte getActiveHotbarSlot() {
+        return this.activeHotbarSlot;
+    }
+    
+    @Nonnull
+    @Override
+    public ItemContainer getHotbar() {
+        return this.hotbar;
+    }
+    
+    @Nonnull
+    @Override
+    public ItemContainer getStorage() {
+        return this.storage;
+    }
+    
+    @Nonnull
+    @Override
+    public ItemContainer getBackpack() {
+        return this.backpack;
+    }
+}
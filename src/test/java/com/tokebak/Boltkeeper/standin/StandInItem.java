@@ -0,0 +1,24 @@
+package com.tokebak.Boltkeeper.standin;
+
+import com.hypixel.hytale.server.core.asset.type.item.config.Item;
+
+import javax.annotation.Nonnull;
+
+/**
+ * An {@link Item} that exists without the asset store: just an id.
+ * Classifiers built from stand-in items must list them by exact id, since id patterns only match weapons.
+ */
+public class StandInItem extends Item {
+    
+    private final String id;
+    
+    public StandInItem(@Nonnull final String id) {
+        this.id = id;
+    }
+    
+    @Nonnull
+    @Override
+    public String getId() {
+        return this.id;
+    }
+}
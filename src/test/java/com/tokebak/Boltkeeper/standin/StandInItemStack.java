@@ -0,0 +1,44 @@
+package com.tokebak.Boltkeeper.standin;
+
+import com.hypixel.hytale.server.core.asset.type.item.config.Item;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import org.bson.BsonDocument;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * An {@link ItemStack} of a {@link StandInItem}. Resolves its item directly instead of through the
+ * Item asset map, and stays a stand-in through the copies the plugin and the containers make of it.
+ */
+public class StandInItemStack extends ItemStack {
+    
+    private final StandInItem item;
+    
+    public StandInItemStack(@Nonnull final StandInItem item, final int quantity, @Nullable final BsonDocument metadata) {
+        super(item.getId(), quantity, metadata);
+        this.item = item;
+    }
+    
+    public StandInItemStack(@Nonnull final StandInItem item, final int quantity) {
+        this(item, quantity, null);
+    }
+    
+    @Nonnull
+    @Override
+    public Item getItem() {
+        return this.item;
+    }
+    
+    @Nonnull
+    @Override
+    public ItemStack withMetadata(@Nullable final BsonDocument metadata) {
+        return new StandInItemStack(this.item, this.getQuantity(), metadata);
+    }
+    
+    @Nullable
+    @Override
+    public ItemStack withQuantity(final int quantity) {
+        return quantity == 0 ? null : new StandInItemStack(this.item, quantity, this.getMetadata());
+    }
+}
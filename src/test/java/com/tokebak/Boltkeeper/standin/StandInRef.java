@@ -0,0 +1,28 @@
+package com.tokebak.Boltkeeper.standin;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+/**
+ * An entity {@link Ref} outside any store, invalidated explicitly when its player leaves.
+ */
+public class StandInRef extends Ref<EntityStore> {
+    
+    private boolean valid = true;
+    
+    public StandInRef(final int index) {
+        super(null, index);
+    }
+    
+    /**
+     * The entity is gone, as after a disconnect or a move to another world.
+     */
+    public void invalidate() {
+        this.valid = false;
+    }
+    
+    @Override
+    public boolean isValid() {
+        return this.valid;
+    }
+}
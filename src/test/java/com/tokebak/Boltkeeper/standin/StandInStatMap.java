@@ -0,0 +1,70 @@
+package com.tokebak.Boltkeeper.standin;
+
+import com.hypixel.hytale.server.core.modules.entitystats.EntityStatMap;
+import com.hypixel.hytale.server.core.modules.entitystats.EntityStatValue;
+
+import javax.annotation.Nullable;
+
+/**
+ * An {@link EntityStatMap} over a fixed number of stats (indices 0..size-1), each with a minimum of 0.
+ * Counts writes, so callers can tell how often a stat was set.
+ */
+public class StandInStatMap extends EntityStatMap {
+    
+    private final Value[] values;
+    
+    private long writes;
+    
+    public StandInStatMap(final int size) {
+        this.values = new Value[size];
+        for (int i = 0; i < size; i++) {
+            this.values[i] = new Value();
+        }
+    }
+    
+    @Nullable
+    @Override
+    public EntityStatValue get(final int index) {
+        return index >= 0 && index < this.values.length ? this.values[index] : null;
+    }
+    
+    @Override
+    public float setStatValue(final int index, final float value) {
+        this.writes++;
+        this.values[index].value = value;
+        return value;
+    }
+    
+    /**
+     * Set a stat as the game would (a shot spending a charge, a swap resetting it), without counting a write.
+     */
+    public void put(final int index, final float value) {
+        this.values[index].value = value;
+    }
+    
+    public float read(final int index) {
+        return this.values[index].value;
+    }
+    
+    /**
+     * Number of {@link #setStatValue} calls so far.
+     */
+    public long getWrites() {
+        return this.writes;
+    }
+    
+    private static final class Value extends EntityStatValue {
+        
+        private float value;
+        
+        @Override
+        public float get() {
+            return this.value;
+        }
+        
+        @Override
+        public float getMin() {
+            return 0f;
+        }
+    }
+}